@@ -0,0 +1,78 @@
+package org.mdt.dronedelivery.accept;
+
+import io.dronefleet.mavlink.MavlinkConnection;
+import io.dronefleet.mavlink.MavlinkMessage;
+import org.mdt.dronedelivery.bench.MavlinkFrames;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// One datagram carrying one frame of every handled payload type, decoded three ways:
+// byte-at-a-time through UdpInputStream, bulk reads through it, and MavlinkFrameDecoder on the buffer
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class IngestDecodeBenchmark {
+
+    private static final InetSocketAddress SENDER = new InetSocketAddress("127.0.0.1", 14550);
+
+    private byte[] datagram;
+    private byte[] chunk;
+    private ByteBuffer buffer;
+    private MavlinkFrameDecoder decoder;
+
+    @Setup
+    public void setUp() {
+        datagram = MavlinkFrames.datagram();
+        chunk = new byte[datagram.length];
+        buffer = ByteBuffer.wrap(datagram);
+        decoder = new MavlinkFrameDecoder();
+    }
+
+    @Benchmark
+    public int udpInputStreamByteReads() throws IOException {
+        UdpInputStream in = new UdpInputStream(datagram, SENDER);
+        int sum = 0;
+        for (int b; (b = in.read()) != -1; ) {
+            sum += b;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int udpInputStreamBulkReads() throws IOException {
+        UdpInputStream in = new UdpInputStream(datagram, SENDER);
+        int total = 0;
+        for (int n; (n = in.read(chunk, 0, chunk.length)) != -1; ) {
+            total += n;
+        }
+        return total;
+    }
+
+    // The original ingest path: dronefleet parsing straight off the stream
+    @Benchmark
+    public void mavlinkConnectionOverUdpInputStream(Blackhole blackhole) throws IOException {
+        MavlinkConnection connection = MavlinkConnection.create(new UdpInputStream(datagram, SENDER), null);
+        try {
+            for (MavlinkMessage<?> message; (message = connection.next()) != null; ) {
+                blackhole.consume(message);
+            }
+        } catch (EOFException end) {
+            // datagram exhausted
+        }
+    }
+
+    @Benchmark
+    public void frameDecoderBulk(Blackhole blackhole) {
+        buffer.clear();
+        decoder.decode(buffer, (frame, payload) -> blackhole.consume(payload));
+    }
+}
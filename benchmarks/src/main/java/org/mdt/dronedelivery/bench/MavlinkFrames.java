@@ -0,0 +1,99 @@
+package org.mdt.dronedelivery.bench;
+
+import io.dronefleet.mavlink.MavlinkConnection;
+import io.dronefleet.mavlink.ardupilotmega.Wind;
+import io.dronefleet.mavlink.common.*;
+import io.dronefleet.mavlink.minimal.Heartbeat;
+import io.dronefleet.mavlink.minimal.MavAutopilot;
+import io.dronefleet.mavlink.minimal.MavModeFlag;
+import io.dronefleet.mavlink.minimal.MavState;
+import io.dronefleet.mavlink.minimal.MavType;
+import io.dronefleet.mavlink.util.EnumValue;
+import org.mdt.dronedelivery.accept.MavlinkFrameDecoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Representative payloads of a multirotor in AUTO mode, shared by the benchmarks
+public final class MavlinkFrames {
+
+    public static final int SYSTEM_ID = 1;
+    public static final int COMPONENT_ID = 1;
+
+    private MavlinkFrames() {
+    }
+
+    public static List<Object> payloads() {
+        return List.of(
+                Heartbeat.builder()
+                        .type(MavType.MAV_TYPE_QUADROTOR)
+                        .autopilot(MavAutopilot.MAV_AUTOPILOT_ARDUPILOTMEGA)
+                        .baseMode(EnumValue.create(MavModeFlag.MAV_MODE_FLAG_SAFETY_ARMED, MavModeFlag.MAV_MODE_FLAG_CUSTOM_MODE_ENABLED))
+                        .customMode(3)
+                        .systemStatus(MavState.MAV_STATE_ACTIVE)
+                        .mavlinkVersion(3)
+                        .build(),
+                GlobalPositionInt.builder()
+                        .timeBootMs(120_000)
+                        .lat(473_977_420).lon(85_455_940)
+                        .alt(520_000).relativeAlt(40_000)
+                        .vx(850).vy(-120).vz(-30)
+                        .hdg(27_000)
+                        .build(),
+                SysStatus.builder()
+                        .voltageBattery(15_800).currentBattery(1_250).batteryRemaining(72)
+                        .build(),
+                VfrHud.builder()
+                        .airspeed(8.5f).groundspeed(8.7f).heading(270).throttle(48).alt(40f).climb(0.3f)
+                        .build(),
+                Wind.builder().direction(180f).speed(3.2f).speedZ(0f).build(),
+                GpsRawInt.builder()
+                        .timeUsec(BigInteger.valueOf(120_000_000L))
+                        .lat(473_977_420).lon(85_455_940).alt(520_000)
+                        .eph(80).epv(120).vel(870).cog(27_000).satellitesVisible(14)
+                        .build(),
+                Attitude.builder()
+                        .timeBootMs(120_000).roll(0.02f).pitch(-0.05f).yaw(-1.57f)
+                        .build(),
+                ServoOutputRaw.builder()
+                        .timeUsec(120_000_000L)
+                        .servo1Raw(1500).servo2Raw(1500).servo3Raw(1620).servo4Raw(1500)
+                        .servo9Raw(1100).servo10Raw(1900).servo11Raw(1500).servo12Raw(1500)
+                        .build(),
+                BatteryStatus.builder()
+                        .id(0)
+                        .voltages(List.of(3950, 3950, 3950, 3950, 65535, 65535, 65535, 65535, 65535, 65535))
+                        .currentBattery(1_250).batteryRemaining(72)
+                        .build(),
+                MissionCurrent.builder().seq(3).build(),
+                NavControllerOutput.builder()
+                        .navBearing(270).targetBearing(268).wpDist(420)
+                        .build());
+    }
+
+    // Every payload as one MAVLink v2 frame, back to back, as a relay would pack a datagram
+    public static byte[] datagram() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MavlinkConnection connection = MavlinkConnection.create(null, out);
+        try {
+            for (Object payload : payloads()) {
+                connection.send2(SYSTEM_ID, COMPONENT_ID, payload);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // payloads() in order, decoded from datagram() the way the ingest path hands them over
+    public static List<Object> decodedPayloads() {
+        List<Object> decoded = new ArrayList<>();
+        new MavlinkFrameDecoder().decode(ByteBuffer.wrap(datagram()), (frame, payload) -> decoded.add(payload));
+        return decoded;
+    }
+}
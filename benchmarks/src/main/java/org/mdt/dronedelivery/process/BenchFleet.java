@@ -0,0 +1,74 @@
+package org.mdt.dronedelivery.process;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mdt.dronedelivery.bench.MavlinkFrames;
+import org.mdt.dronedelivery.link.LinkMonitor;
+import org.mdt.dronedelivery.process.handler.*;
+import org.mdt.dronedelivery.send.TelemetryWebSocketService;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+// Wires the processing stage by hand, the way Spring would, and fills it with vehicles
+final class BenchFleet {
+
+    static final int BASE_PORT = 1500;
+
+    private BenchFleet() {
+    }
+
+    static List<MavlinkPayloadHandler<?>> payloadHandlers(DroneStateRegistry registry) {
+        TelemetryUpdateService updates = new TelemetryUpdateService();
+        return List.of(
+                new HeartbeatHandler(updates),
+                new GlobalPositionIntHandler(updates),
+                new SysStatusHandler(updates),
+                new VfrHudHandler(updates),
+                new WindHandler(updates),
+                new GpsRawIntHandler(updates),
+                new AttitudeHandler(updates),
+                new ServoOutputRawHandler(updates),
+                new BatteryStatusHandler(updates),
+                new MissionCurrentHandler(updates),
+                new NavControllerOutputHandler(updates),
+                new MissionCountHandler(updates, registry),
+                new MissionItemIntHandler(updates, registry));
+    }
+
+    // Never started: links are handed out and touched, but no timer thread ticks
+    static LinkMonitor linkMonitor() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new LinkMonitor(100, 512, 3000, 10000, 30000, 2000, 10000, 300000,
+                new TelemetryWebSocketService(256, "keep-latest", true, meterRegistry), meterRegistry);
+    }
+
+    static DroneStateRegistry registry(int drones) {
+        return new DroneStateRegistry(drones, false, linkMonitor(), new SimpleMeterRegistry());
+    }
+
+    // One vehicle per port, each fed every sample message once so all telemetry fields are populated;
+    // the heartbeat comes first and registers the vehicle
+    static DroneStateRegistry populate(int drones) throws UnknownHostException {
+        DroneStateRegistry registry = registry(Math.max(16, drones));
+        List<MavlinkPayloadHandler<?>> handlers = payloadHandlers(registry);
+        MavlinkMessageHandler messageHandler = new MavlinkMessageHandler(registry, handlers);
+        InetAddress sender = InetAddress.getByName("127.0.0.1");
+        for (Object payload : MavlinkFrames.decodedPayloads()) {
+            int messageId = messageId(handlers, payload);
+            for (int i = 0; i < drones; i++) {
+                messageHandler.handleMessage(payload, messageId, MavlinkFrames.SYSTEM_ID, MavlinkFrames.COMPONENT_ID,
+                        BASE_PORT + i, sender, 0);
+            }
+        }
+        return registry;
+    }
+
+    static int messageId(List<MavlinkPayloadHandler<?>> handlers, Object payload) {
+        return handlers.stream()
+                .filter(h -> h.payloadType() == payload.getClass())
+                .findFirst()
+                .orElseThrow()
+                .messageId();
+    }
+}
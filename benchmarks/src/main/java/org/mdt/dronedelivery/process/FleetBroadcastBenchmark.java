@@ -0,0 +1,44 @@
+package org.mdt.dronedelivery.process;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mdt.dronedelivery.bench.DiscardingWebSocketSession;
+import org.mdt.dronedelivery.send.TelemetryWebSocketService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// One broadcast tick over the whole fleet: snapshot, JSON encode and queue on one JSON session.
+// changed-only is off so every tick is a full pass regardless of what the drones sent.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FleetBroadcastBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int drones;
+
+    private TelemetryWebSocketService webSocketService;
+    private TelemetryBroadcastScheduler scheduler;
+
+    @Setup
+    public void setUp() throws IOException {
+        DroneStateRegistry registry = BenchFleet.populate(drones);
+        webSocketService = new TelemetryWebSocketService(4096, "keep-latest", true, new SimpleMeterRegistry());
+        webSocketService.afterConnectionEstablished(new DiscardingWebSocketSession("bench", null));
+        scheduler = new TelemetryBroadcastScheduler(registry, webSocketService, 100, false, true, new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() {
+        webSocketService.shutdown();
+    }
+
+    @Benchmark
+    public void flush() {
+        scheduler.flush();
+    }
+}
@@ -0,0 +1,60 @@
+package org.mdt.dronedelivery.process;
+
+import org.mdt.dronedelivery.bench.MavlinkFrames;
+import org.mdt.dronedelivery.process.handler.MavlinkPayloadHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// MavlinkMessageHandler.handleMessage for one payload type at a time, against a single warm vehicle
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageHandlerBenchmark {
+
+    private static final int PORT = 1500;
+
+    @Param({"Heartbeat", "GlobalPositionInt", "SysStatus", "VfrHud", "Wind", "GpsRawInt", "Attitude",
+            "ServoOutputRaw", "BatteryStatus", "MissionCurrent", "NavControllerOutput"})
+    public String payloadType;
+
+    private MavlinkMessageHandler handler;
+    private Object payload;
+    private int messageId;
+    private InetAddress sender;
+
+    @Setup
+    public void setUp() throws UnknownHostException {
+        DroneStateRegistry registry = BenchFleet.registry(16);
+        List<MavlinkPayloadHandler<?>> payloadHandlers = BenchFleet.payloadHandlers(registry);
+        handler = new MavlinkMessageHandler(registry, payloadHandlers);
+        sender = InetAddress.getByName("127.0.0.1");
+
+        List<Object> payloads = MavlinkFrames.decodedPayloads();
+        payload = payloads.stream()
+                .filter(p -> p.getClass().getSimpleName().equals(payloadType))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No sample payload " + payloadType));
+        messageId = BenchFleet.messageId(payloadHandlers, payload);
+        // The heartbeat registers the vehicle and the first message warms it; measure the steady state
+        Object heartbeat = payloads.get(0);
+        handler.handleMessage(heartbeat, BenchFleet.messageId(payloadHandlers, heartbeat),
+                MavlinkFrames.SYSTEM_ID, MavlinkFrames.COMPONENT_ID, PORT, sender, 0);
+        handle();
+    }
+
+    @Benchmark
+    public void handleMessage() {
+        handle();
+    }
+
+    private void handle() {
+        handler.handleMessage(payload, messageId, MavlinkFrames.SYSTEM_ID, MavlinkFrames.COMPONENT_ID, PORT, sender, 0);
+    }
+}
@@ -0,0 +1,45 @@
+package org.mdt.dronedelivery.process;
+
+import io.dronefleet.mavlink.common.ServoOutputRaw;
+import org.mdt.dronedelivery.bench.MavlinkFrames;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TelemetryMathBenchmark {
+
+    private final TelemetryUpdateService updates = new TelemetryUpdateService();
+    private final TelemetryData telemetry = new TelemetryData();
+    private ServoOutputRaw servoOutputRaw;
+    // Non-final so the JIT cannot fold the haversine into a constant
+    private double lat1 = 47.397742;
+    private double lon1 = 8.545594;
+    private double lat2 = 47.398100;
+    private double lon2 = 8.546200;
+
+    @Setup
+    public void setUp() {
+        servoOutputRaw = MavlinkFrames.payloads().stream()
+                .filter(ServoOutputRaw.class::isInstance)
+                .map(ServoOutputRaw.class::cast)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public double calculateDistance() {
+        return TelemetryUpdateService.calculateDistance(lat1, lon1, lat2, lon2);
+    }
+
+    @Benchmark
+    public TelemetryData applyServoOutputs() {
+        updates.applyServoOutputs(telemetry, servoOutputRaw);
+        return telemetry;
+    }
+}
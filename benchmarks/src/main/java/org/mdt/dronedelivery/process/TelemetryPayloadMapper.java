@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+// The map-based telemetry payload TelemetryFrameEncoder replaced, kept as the serialization baseline
 final class TelemetryPayloadMapper {
 
     private TelemetryPayloadMapper() {}
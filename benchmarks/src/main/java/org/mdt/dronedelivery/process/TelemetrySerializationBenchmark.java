@@ -0,0 +1,46 @@
+package org.mdt.dronedelivery.process;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mdt.dronedelivery.send.FieldGroup;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// One drone's telemetry frame: the original HashMap + ObjectMapper route against the streaming encoder
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TelemetrySerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TelemetryFrameEncoder encoder = new TelemetryFrameEncoder();
+    private TelemetryData data;
+    private String key;
+
+    @Setup
+    public void setUp() throws IOException {
+        DroneState state = BenchFleet.populate(1).state(0);
+        data = state.getTelemetry().snapshot(new TelemetryData());
+        key = state.getFrameKey();
+    }
+
+    @Benchmark
+    public Object payloadMapperToMap() {
+        return TelemetryPayloadMapper.toMap(data, List.of(), null);
+    }
+
+    @Benchmark
+    public byte[] payloadMapperToJson() throws IOException {
+        return objectMapper.writeValueAsBytes(TelemetryPayloadMapper.toMap(data, List.of(), null));
+    }
+
+    @Benchmark
+    public byte[] frameEncoderAllGroups() throws IOException {
+        return encoder.encodeEntry(key, data, FieldGroup.ALL);
+    }
+}
@@ -0,0 +1,49 @@
+package org.mdt.dronedelivery.accept;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Receive buffers are owned by a listener, event loop or the scanner for their whole
+// lifetime and handed back here when they stop, so steady-state receive never allocates.
+@Component
+public class DatagramBufferPool {
+
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final int bufferSize;
+    private final boolean direct;
+
+    public DatagramBufferPool(
+            @Value("${drone-delivery.buffer-size:1024}") int bufferSize,
+            @Value("${drone-delivery.buffer-pool.direct:true}") boolean direct) {
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+        }
+        return buffer.clear();
+    }
+
+    // Heap buffer for code that needs a backing array (DatagramSocket/DatagramPacket)
+    public ByteBuffer acquireHeap() {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer.hasArray() && buffers.remove(buffer)) {
+                return buffer.clear();
+            }
+        }
+        return ByteBuffer.allocate(bufferSize);
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.capacity() == bufferSize) {
+            buffers.offer(buffer.clear());
+        }
+    }
+}
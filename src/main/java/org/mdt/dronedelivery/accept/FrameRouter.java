@@ -0,0 +1,98 @@
+package org.mdt.dronedelivery.accept;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.mdt.dronedelivery.logging.IngestActivityLog;
+import org.mdt.dronedelivery.metrics.LatencyTimers;
+import org.mdt.dronedelivery.process.MavlinkIngestPipeline;
+import org.mdt.dronedelivery.record.FlightRecorder;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+
+// Where decoded datagrams go, the same for every PortListener: valid frames into the
+// FlightRecorder, copies from redundant links dropped by the LinkAggregator, messages into the
+// MavlinkIngestPipeline with their decode latency, and counts into the port's activity summary
+// and trace. Each receive path only moves bytes off its socket into PortSink.decode.
+@Component
+public class FrameRouter {
+
+    private final MavlinkIngestPipeline mavlinkIngestPipeline;
+    private final FlightRecorder flightRecorder;
+    private final IngestActivityLog activityLog;
+    private final LinkAggregator linkAggregator;
+    private final MeterRegistry meterRegistry;
+    // null when latency measurement is off
+    private final LatencyTimers decodeLatency;
+
+    public FrameRouter(MavlinkIngestPipeline mavlinkIngestPipeline,
+                       FlightRecorder flightRecorder,
+                       IngestActivityLog activityLog,
+                       LinkAggregator linkAggregator,
+                       MeterRegistry meterRegistry) {
+        this.mavlinkIngestPipeline = mavlinkIngestPipeline;
+        this.flightRecorder = flightRecorder;
+        this.activityLog = activityLog;
+        this.linkAggregator = linkAggregator;
+        this.meterRegistry = meterRegistry;
+        this.decodeLatency = mavlinkIngestPipeline.isLatencyEnabled()
+                ? new LatencyTimers(meterRegistry, "mavlink.ingest.latency", "decode")
+                : null;
+    }
+
+    // One per receiving socket or thread: the sink owns the port's decoder state
+    PortSink forPort(int port) {
+        return new PortSink(port);
+    }
+
+    final class PortSink implements MavlinkFrameDecoder.Listener {
+
+        private final int port;
+        private final MavlinkFrameDecoder decoder = new MavlinkFrameDecoder(mavlinkIngestPipeline::accepts);
+        private final PortMetrics portMetrics;
+        private final IngestActivityLog.PortActivity activity;
+        private final LinkAggregator.PortView links;
+        private InetAddress sender;
+        private long receivedNanos;
+
+        private PortSink(int port) {
+            this.port = port;
+            this.portMetrics = new PortMetrics(meterRegistry, port);
+            this.activity = activityLog.forPort(port);
+            this.links = linkAggregator.forPort(port);
+        }
+
+        void decode(ByteBuffer datagram, InetAddress from) {
+            sender = from;
+            receivedNanos = System.nanoTime();
+            decoder.decode(datagram, this);
+            portMetrics.afterDatagram(decoder);
+        }
+
+        @Override
+        public boolean acceptFrame(MavlinkFrame frame) {
+            return links.accept(frame, sender, receivedNanos);
+        }
+
+        @Override
+        public void onFrame(MavlinkFrame frame, ByteBuffer buffer, int start, int length) {
+            flightRecorder.record(port, buffer, start, length);
+        }
+
+        @Override
+        public void onMessage(MavlinkFrame frame, Object payload) {
+            int messageId = frame.getMessageId();
+            long submittedNanos = 0;
+            if (decodeLatency != null) {
+                decodeLatency.record(messageId, payload, System.nanoTime() - receivedNanos);
+                submittedNanos = receivedNanos;
+            }
+            mavlinkIngestPipeline.submit(payload, messageId, frame.getSystemId(), frame.getComponentId(),
+                    links.port(), links.sender(), submittedNanos);
+            activity.count(messageId, payload);
+            if (activityLog.isTraced(port)) {
+                activityLog.trace(port, messageId, payload, sender);
+            }
+        }
+    }
+}
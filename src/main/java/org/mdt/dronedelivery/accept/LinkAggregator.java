@@ -0,0 +1,465 @@
+package org.mdt.dronedelivery.accept;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.mdt.dronedelivery.link.LinkMonitor;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.DroneStateRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Merges redundant links: a ground station that forwards one aircraft on both gcsPort1 and
+// gcsPort2 delivers every frame twice. Ports are linked into a Group once the same HEARTBEAT
+// (equal MavlinkFrame.fingerprint, so same sysId, compId, seq and CRC) has arrived on both
+// confirm-heartbeats times in a row. From then on the first copy of each frame wins and later copies
+// are dropped before parsing; surviving frames are submitted under the group's canonical port, so
+// the vehicle keeps one DroneState and one track whichever link delivered them, and the states the
+// other ports had are released. The best link (least sequence loss, then least lag behind the first
+// copy) supplies the GCS address and is re-chosen every second, so a failing link hands over
+// without a gap. A group dissolves when its links keep delivering but stop sharing heartbeats for
+// dissolve-ms, when the vehicle goes silent, or when releasing a port leaves it with one member.
+@Component
+public class LinkAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LinkAggregator.class);
+    private static final int HEARTBEAT = 0;
+    private static final long RESELECT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int confirmHeartbeats;
+    private final long dissolveNanos;
+    private final DroneStateRegistry droneStateRegistry;
+    // By DroneState.vehicleKey(port, systemId, componentId)
+    private final Map<Integer, Member> members = new ConcurrentHashMap<>();
+    // Recent heartbeats by fingerprint, to spot the same one arriving on a second port
+    private final Map<Long, Sighting> sightings = new ConcurrentHashMap<>();
+    private volatile long purgedAtNanos = System.nanoTime();
+    private final List<Group> groups = new CopyOnWriteArrayList<>();
+    private final Counter failovers;
+
+    public LinkAggregator(@Value("${drone-delivery.link.dedupe.enabled:true}") boolean enabled,
+                          @Value("${drone-delivery.link.dedupe.window-ms:500}") long windowMs,
+                          @Value("${drone-delivery.link.dedupe.confirm-heartbeats:3}") int confirmHeartbeats,
+                          @Value("${drone-delivery.link.dedupe.dissolve-ms:5000}") long dissolveMs,
+                          DroneStateRegistry droneStateRegistry,
+                          LinkMonitor linkMonitor,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.confirmHeartbeats = Math.max(1, confirmHeartbeats);
+        this.dissolveNanos = TimeUnit.MILLISECONDS.toNanos(dissolveMs);
+        this.droneStateRegistry = droneStateRegistry;
+        linkMonitor.addPortEndListener(this::releasePort);
+        Gauge.builder("link.aggregate.groups", groups, List::size)
+                .description("Vehicles received over more than one port")
+                .register(meterRegistry);
+        this.failovers = Counter.builder("link.aggregate.failovers")
+                .description("Times a redundant vehicle's best link changed")
+                .register(meterRegistry);
+    }
+
+    // One per decoder: the view caches member lookups and is used from one thread at a time
+    public PortView forPort(int port) {
+        return new PortView(port);
+    }
+
+    private Member member(int port, int systemId, int componentId) {
+        return members.computeIfAbsent(DroneState.vehicleKey(port, systemId, componentId),
+                key -> new Member(port, systemId, componentId));
+    }
+
+    private void sighted(Member member, long fingerprint, long nowNanos) {
+        judgePending(member, nowNanos);
+        Sighting sighting = new Sighting(member, nowNanos);
+        Sighting prior = sightings.putIfAbsent(fingerprint, sighting);
+        if (prior != null && nowNanos - prior.nanos > windowNanos && sightings.replace(fingerprint, prior, sighting)) {
+            prior = null;
+        }
+        if (prior == null) {
+            // First to deliver this heartbeat; judged at the member's next heartbeat
+            member.pending = sighting;
+        } else if (prior.member != member) {
+            prior.matched = true;
+            sightings.remove(fingerprint, prior);
+            confirm(prior.member, member, nowNanos);
+        }
+        if (nowNanos - purgedAtNanos >= PURGE_INTERVAL_NANOS) {
+            purgedAtNanos = nowNanos;
+            sightings.values().removeIf(s -> nowNanos - s.nanos > windowNanos);
+            prune(nowNanos);
+        }
+    }
+
+    // A heartbeat no other port delivered within the window breaks the run of shared ones
+    private void judgePending(Member member, long nowNanos) {
+        Sighting pending = member.pending;
+        if (pending == null || nowNanos - pending.nanos <= windowNanos) {
+            return;
+        }
+        member.pending = null;
+        if (!pending.matched) {
+            member.candidateHits = 0;
+        }
+    }
+
+    // Counts consecutive shared heartbeats; racy across threads, which only delays confirmation
+    private void confirm(Member a, Member b, long nowNanos) {
+        if (a.retired || b.retired || a.group != null && a.group == b.group) {
+            return;
+        }
+        // The count lives on the joining member whichever port delivered first, so the run survives
+        // the two links taking turns
+        Member second = a.group == null && (b.group != null || a.createdNanos > b.createdNanos) ? a : b;
+        Member first = second == a ? b : a;
+        Object partner = first.group != null ? first.group : first;
+        if (second.candidate != partner) {
+            second.candidate = partner;
+            second.candidateHits = 0;
+        }
+        if (++second.candidateHits >= confirmHeartbeats) {
+            merge(first, second, nowNanos);
+        }
+    }
+
+    private void merge(Member a, Member b, long nowNanos) {
+        List<DroneState> retired = new ArrayList<>();
+        synchronized (this) {
+            Group ga = a.group;
+            Group gb = b.group;
+            if (a.retired || b.retired || ga != null && ga == gb) {
+                return;
+            }
+            // The longest-known port stays canonical so the existing DroneState keeps the track
+            Group target = ga != null && (gb == null || ga.createdNanos <= gb.createdNanos) ? ga : gb;
+            if (target == null) {
+                Member older = a.createdNanos <= b.createdNanos ? a : b;
+                target = new Group(older.port, nowNanos);
+                groups.add(target);
+            }
+            for (Member member : List.of(a, b)) {
+                Group previous = member.group;
+                if (previous == target) {
+                    continue;
+                }
+                if (previous != null) {
+                    for (Member moved : previous.members) {
+                        target.add(moved);
+                    }
+                    groups.remove(previous);
+                } else {
+                    target.add(member);
+                }
+            }
+            for (Member member : target.members) {
+                member.candidate = null;
+                member.candidateHits = 0;
+                if (member.port != target.canonicalPort) {
+                    DroneState state = droneStateRegistry.get(
+                            DroneState.vehicleKey(member.port, member.systemId, member.componentId));
+                    if (state != null) {
+                        retired.add(state);
+                    }
+                }
+            }
+            logger.info("Vehicle {}:{} is redundant over ports {}; frames are deduplicated under port {}",
+                    a.systemId, a.componentId, target.ports(), target.canonicalPort);
+        }
+        // Frames now arrive under the canonical port; the other ports' tracks would only go stale
+        retired.forEach(droneStateRegistry::release);
+    }
+
+    private synchronized void dissolve(Group group, String reason) {
+        if (!groups.remove(group)) {
+            return;
+        }
+        for (Member member : group.members) {
+            member.group = null;
+            member.candidate = null;
+            member.candidateHits = 0;
+        }
+        logger.info("Vehicle {} no longer deduplicated over ports {}: {}",
+                group.vehicle(), group.ports(), reason);
+    }
+
+    // LinkMonitor: the port was released or its listener stopped
+    void releasePort(int port) {
+        List<Member> removed = new ArrayList<>();
+        members.values().removeIf(member -> member.port == port && removed.add(member));
+        removed.forEach(member -> retire(member, "port " + port + " released"));
+    }
+
+    // Groups whose members have all been silent for dissolve-ms dissolve, and ungrouped members
+    // silent that long are forgotten. A grouped member that alone went quiet is a failed link, kept
+    // until its port is released so the track stays under the canonical port.
+    private void prune(long nowNanos) {
+        for (Group group : groups) {
+            if (group.members.stream().allMatch(member -> nowNanos - member.lastNanos > dissolveNanos)) {
+                dissolve(group, "the vehicle went silent");
+            }
+        }
+        for (Iterator<Member> it = members.values().iterator(); it.hasNext(); ) {
+            Member member = it.next();
+            if (member.group == null && nowNanos - member.lastNanos > dissolveNanos) {
+                it.remove();
+                retire(member, "port " + member.port + " went silent");
+            }
+        }
+    }
+
+    private synchronized void retire(Member member, String reason) {
+        member.retired = true;
+        Group group = member.group;
+        if (group == null) {
+            return;
+        }
+        group.members.remove(member);
+        member.group = null;
+        if (group.best == member) {
+            group.best = null;
+        }
+        // The canonical port may go while others stay: its DroneState keeps the track either way
+        if (group.members.size() < 2) {
+            dissolve(group, reason);
+        }
+    }
+
+    public final class PortView {
+
+        private final int port;
+        private Member last;
+        private int submitPort;
+        private InetAddress submitSender;
+
+        private PortView(int port) {
+            this.port = port;
+            this.submitPort = port;
+        }
+
+        // false when the frame is a copy of one already accepted from another port of the vehicle;
+        // otherwise port() and sender() say how to submit it
+        public boolean accept(MavlinkFrame frame, InetAddress sender, long receivedNanos) {
+            submitPort = port;
+            submitSender = sender;
+            if (!enabled) {
+                return true;
+            }
+            int systemId = frame.getSystemId();
+            int componentId = frame.getComponentId();
+            Member member = last;
+            if (member == null || member.retired || member.systemId != systemId || member.componentId != componentId) {
+                member = member(port, systemId, componentId);
+                last = member;
+            }
+            member.observe(frame.getSequence(), sender, receivedNanos);
+            long fingerprint = frame.fingerprint();
+            if (frame.getMessageId() == HEARTBEAT) {
+                sighted(member, fingerprint, receivedNanos);
+            }
+            Group group = member.group;
+            if (group == null) {
+                return true;
+            }
+            if (!group.firstCopy(member, frame.getSequence(), fingerprint, receivedNanos)) {
+                if (frame.getMessageId() == HEARTBEAT) {
+                    group.sharedNanos = receivedNanos;
+                }
+                return false;
+            }
+            if (group.maybeReselect(receivedNanos)) {
+                dissolve(group, "its links no longer share heartbeats");
+                return true;
+            }
+            submitPort = group.canonicalPort;
+            Member best = group.best;
+            if (best != null && best.lastSender != null) {
+                submitSender = best.lastSender;
+            }
+            return true;
+        }
+
+        public int port() {
+            return submitPort;
+        }
+
+        public InetAddress sender() {
+            return submitSender;
+        }
+    }
+
+    // One port's view of one vehicle. Counters are plain fields: with SO_REUSEPORT two event
+    // loops may update the same member, which only blurs the link statistics.
+    private static final class Member {
+
+        private final int port;
+        private final int systemId;
+        private final int componentId;
+        private final long createdNanos = System.nanoTime();
+        private volatile Group group;
+        private volatile boolean retired;
+        private int lastSeq = -1;
+        private long frames;
+        private long gaps;
+        private long lagNanos;
+        private volatile long lastNanos;
+        private volatile InetAddress lastSender;
+        // The member or group this one has shared heartbeats with, and how many in a row
+        private Object candidate;
+        private int candidateHits;
+        private Sighting pending;
+        // Totals at the last best-link selection
+        private long selectedFrames;
+        private long selectedGaps;
+
+        private Member(int port, int systemId, int componentId) {
+            this.port = port;
+            this.systemId = systemId;
+            this.componentId = componentId;
+        }
+
+        void observe(int seq, InetAddress sender, long nowNanos) {
+            if (lastSeq >= 0) {
+                int gap = (seq - lastSeq - 1) & 0xFF;
+                // A large jump is a reordering or a restart, not 200 lost frames
+                if (gap < 128) {
+                    gaps += gap;
+                }
+            }
+            lastSeq = seq;
+            frames++;
+            lastNanos = nowNanos;
+            lastSender = sender;
+        }
+
+        // Exponential average, 1/16 weight per sample
+        void lag(long nanos) {
+            lagNanos += (nanos - lagNanos) >> 4;
+        }
+    }
+
+    // Vehicles' frames carry one sequence counter, so the last fingerprint seen per sequence number
+    // is enough to recognise copies arriving from any member within the window. Races between
+    // members can at worst let a copy through, never drop an original.
+    private final class Group {
+
+        private final int canonicalPort;
+        private final long createdNanos = System.nanoTime();
+        // Last time a heartbeat arrived on more than one member
+        private volatile long sharedNanos;
+        private final List<Member> members = new CopyOnWriteArrayList<>();
+        private final AtomicLongArray seen = new AtomicLongArray(256);
+        private final long[] seenNanos = new long[256];
+        private volatile Member best;
+        private volatile long selectedAtNanos;
+
+        private Group(int canonicalPort, long nowNanos) {
+            this.canonicalPort = canonicalPort;
+            this.sharedNanos = nowNanos;
+            for (int i = 0; i < 256; i++) {
+                // No real frame has this fingerprint: message id 0xFFFFFF has no CRC extra
+                seen.set(i, -1);
+            }
+        }
+
+        void add(Member member) {
+            members.add(member);
+            member.group = this;
+        }
+
+        List<Integer> ports() {
+            return members.stream().map(m -> m.port).toList();
+        }
+
+        String vehicle() {
+            return members.isEmpty() ? "?" : members.get(0).systemId + ":" + members.get(0).componentId;
+        }
+
+
+        boolean firstCopy(Member member, int seq, long fingerprint, long nowNanos) {
+            while (true) {
+                long previous = seen.get(seq);
+                // An identical frame one sequence wrap later is new, not a copy
+                if (previous == fingerprint && nowNanos - seenNanos[seq] <= windowNanos) {
+                    member.lag(nowNanos - seenNanos[seq]);
+                    return false;
+                }
+                if (seen.compareAndSet(seq, previous, fingerprint)) {
+                    seenNanos[seq] = nowNanos;
+                    member.lag(0);
+                    return true;
+                }
+            }
+        }
+
+        // Loss since the last selection first, lag as the tie-breaker; links silent for a
+        // selection interval are out. True when two or more links are still delivering but none of
+        // their heartbeats has matched for dissolve-ms: they no longer carry the same vehicle.
+        boolean maybeReselect(long nowNanos) {
+            if (nowNanos - selectedAtNanos < RESELECT_INTERVAL_NANOS) {
+                return false;
+            }
+            synchronized (this) {
+                if (nowNanos - selectedAtNanos < RESELECT_INTERVAL_NANOS) {
+                    return false;
+                }
+                selectedAtNanos = nowNanos;
+                Member chosen = null;
+                double chosenLoss = 0;
+                int active = 0;
+                for (Member member : members) {
+                    long frames = member.frames - member.selectedFrames;
+                    long gaps = member.gaps - member.selectedGaps;
+                    member.selectedFrames = member.frames;
+                    member.selectedGaps = member.gaps;
+                    if (nowNanos - member.lastNanos > RESELECT_INTERVAL_NANOS || frames == 0) {
+                        continue;
+                    }
+                    active++;
+                    double loss = (double) gaps / (frames + gaps);
+                    if (chosen == null || loss < chosenLoss
+                            || (loss == chosenLoss && member.lagNanos < chosen.lagNanos)) {
+                        chosen = member;
+                        chosenLoss = loss;
+                    }
+                }
+                Member previous = best;
+                if (chosen != null && chosen != previous) {
+                    best = chosen;
+                    if (previous != null) {
+                        failovers.increment();
+                        logger.info("Vehicle {}:{} now prefers port {} over {} ({}% loss, {}us lag)",
+                                chosen.systemId, chosen.componentId, chosen.port, previous.port,
+                                Math.round(chosenLoss * 100), TimeUnit.NANOSECONDS.toMicros(chosen.lagNanos));
+                    }
+                }
+                return active > 1 && nowNanos - sharedNanos > dissolveNanos;
+            }
+        }
+    }
+
+    private static final class Sighting {
+
+        private final Member member;
+        private final long nanos;
+        private volatile boolean matched;
+
+        private Sighting(Member member, long nanos) {
+            this.member = member;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.mdt.dronedelivery.accept;
+
+import io.dronefleet.mavlink.MavlinkDialect;
+import io.dronefleet.mavlink.annotations.MavlinkMessageInfo;
+import io.dronefleet.mavlink.ardupilotmega.ArdupilotmegaDialect;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// X.25 checksum, CRC_EXTRA and payload type lookup for MAVLink frames.
+// ArdupilotmegaDialect includes the common message set.
+public final class MavlinkCrc {
+
+    private static final MavlinkDialect DIALECT = new ArdupilotmegaDialect();
+    private static final short UNRESOLVED = -2;
+    private static final short UNKNOWN = -1;
+    private static final short[] CRC_EXTRA = new short[1 << 16];
+
+    static {
+        Arrays.fill(CRC_EXTRA, UNRESOLVED);
+    }
+
+    private MavlinkCrc() {}
+
+    // Returns -1 when the message id is not part of the dialect
+    public static int crcExtra(int messageId) {
+        if (messageId >= CRC_EXTRA.length) {
+            return resolve(messageId);
+        }
+        int cached = CRC_EXTRA[messageId];
+        if (cached == UNRESOLVED) {
+            cached = resolve(messageId);
+            CRC_EXTRA[messageId] = (short) cached;
+        }
+        return cached;
+    }
+
+    // Payload class for the message id, or null when the dialect does not know it
+    static Class<?> messageType(int messageId) {
+        return DIALECT.supports(messageId) ? DIALECT.resolve(messageId) : null;
+    }
+
+    private static int resolve(int messageId) {
+        if (!DIALECT.supports(messageId)) {
+            return UNKNOWN;
+        }
+        Class<?> type = DIALECT.resolve(messageId);
+        MavlinkMessageInfo info = type == null ? null : type.getAnnotation(MavlinkMessageInfo.class);
+        return info == null ? UNKNOWN : info.crc() & 0xFF;
+    }
+
+    static int accumulate(int b, int crc) {
+        int tmp = (b ^ crc) & 0xFF;
+        tmp = (tmp ^ (tmp << 4)) & 0xFF;
+        return ((crc >>> 8) ^ (tmp << 8) ^ (tmp << 3) ^ (tmp >>> 4)) & 0xFFFF;
+    }
+
+    // Checksum over [from, to) of the buffer followed by the message's CRC_EXTRA byte
+    public static int calculate(ByteBuffer buffer, int from, int to, int crcExtra) {
+        int crc = 0xFFFF;
+        for (int i = from; i < to; i++) {
+            crc = accumulate(buffer.get(i), crc);
+        }
+        return accumulate(crcExtra, crc);
+    }
+}
@@ -0,0 +1,61 @@
+package org.mdt.dronedelivery.accept;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+// Header view of the frame MavlinkFrameDecoder just validated. The decoder reuses
+// the same instance for every frame, so copy anything you keep.
+@Getter
+public final class MavlinkFrame {
+
+    public static final int MAGIC_V1 = 0xFE;
+    public static final int MAGIC_V2 = 0xFD;
+    public static final int HEADER_LENGTH_V1 = 6;
+    public static final int HEADER_LENGTH_V2 = 10;
+    public static final int SIGNATURE_LENGTH = 13;
+    public static final int MAX_FRAME_LENGTH = HEADER_LENGTH_V2 + 255 + 2 + SIGNATURE_LENGTH;
+
+    private int version;
+    private int payloadLength;
+    private int sequence;
+    private int systemId;
+    private int componentId;
+    private int messageId;
+    // CRC as sent, covering header and payload
+    private int checksum;
+
+    void readHeader(ByteBuffer buffer, int start) {
+        int magic = buffer.get(start) & 0xFF;
+        payloadLength = buffer.get(start + 1) & 0xFF;
+        if (magic == MAGIC_V1) {
+            version = 1;
+            sequence = buffer.get(start + 2) & 0xFF;
+            systemId = buffer.get(start + 3) & 0xFF;
+            componentId = buffer.get(start + 4) & 0xFF;
+            messageId = buffer.get(start + 5) & 0xFF;
+        } else {
+            version = 2;
+            sequence = buffer.get(start + 4) & 0xFF;
+            systemId = buffer.get(start + 5) & 0xFF;
+            componentId = buffer.get(start + 6) & 0xFF;
+            messageId = (buffer.get(start + 7) & 0xFF)
+                    | (buffer.get(start + 8) & 0xFF) << 8
+                    | (buffer.get(start + 9) & 0xFF) << 16;
+        }
+    }
+
+    void setChecksum(int checksum) {
+        this.checksum = checksum;
+    }
+
+    // sysId | compId | seq | 24-bit msgId | CRC: equal only for copies of the same transmitted frame
+    public long fingerprint() {
+        return (long) systemId << 56 | (long) componentId << 48 | (long) sequence << 40
+                | (long) (messageId & 0xFFFFFF) << 16 | checksum;
+    }
+
+    public int headerLength() {
+        return version == 1 ? HEADER_LENGTH_V1 : HEADER_LENGTH_V2;
+    }
+}
@@ -0,0 +1,189 @@
+package org.mdt.dronedelivery.accept;
+
+import io.dronefleet.mavlink.serialization.payload.MavlinkPayloadDeserializer;
+import io.dronefleet.mavlink.serialization.payload.reflection.ReflectionPayloadDeserializer;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntPredicate;
+
+import static org.mdt.dronedelivery.accept.MavlinkFrame.*;
+
+// Splits MAVLink v1/v2 frames straight out of a received datagram buffer, checks the
+// CRC in place and only then deserializes the payload, once, with dronefleet's public payload
+// deserializer. The header stays in the reused MavlinkFrame; only the payload bytes are copied.
+// The deserializer still allocates the payload object and its own reflective temporaries.
+// A length byte is only trusted once the CRC it covers checks out; until then the
+// scan moves on one byte at a time. Frames split across datagrams are carried over
+// in a fixed buffer. One decoder per stream; not thread-safe.
+public final class MavlinkFrameDecoder {
+
+    @FunctionalInterface
+    public interface Listener {
+        // payload is the dronefleet payload class for frame.getMessageId(); the frame is reused after this
+        void onMessage(MavlinkFrame frame, Object payload);
+
+        // Every frame that passed its CRC, filtered or not, as raw bytes still in the receive buffer
+        default void onFrame(MavlinkFrame frame, ByteBuffer buffer, int start, int length) {
+        }
+
+        // Every frame that passed its CRC, after onFrame; false drops it before filtering and parsing
+        default boolean acceptFrame(MavlinkFrame frame) {
+            return true;
+        }
+    }
+
+    private final byte[] pending = new byte[MAX_FRAME_LENGTH];
+    private final ByteBuffer pendingView = ByteBuffer.wrap(pending);
+    private int pendingLength;
+
+    private final MavlinkFrame frame = new MavlinkFrame();
+    private final MavlinkPayloadDeserializer deserializer = new ReflectionPayloadDeserializer();
+    // Message ids worth parsing; anything else is dropped once its CRC checks out
+    private final IntPredicate messageFilter;
+
+    @Getter
+    private long framesDecoded;
+    @Getter
+    private long crcFailures;
+    @Getter
+    private long unknownMessages;
+    @Getter
+    private long bytesSkipped;
+    @Getter
+    private long messagesFiltered;
+    @Getter
+    private long parseErrors;
+    @Getter
+    private long framesDropped;
+
+    public MavlinkFrameDecoder() {
+        this(messageId -> true);
+    }
+
+    public MavlinkFrameDecoder(IntPredicate messageFilter) {
+        this.messageFilter = messageFilter;
+    }
+
+    // Consumes everything between the buffer's position and limit
+    public void decode(ByteBuffer in, Listener listener) {
+        if (pendingLength > 0 && !completePending(in, listener)) {
+            return;
+        }
+        while (in.hasRemaining()) {
+            int start = in.position();
+            int magic = in.get(start) & 0xFF;
+            if (magic != MAGIC_V1 && magic != MAGIC_V2) {
+                in.position(start + 1);
+                bytesSkipped++;
+                continue;
+            }
+            int available = in.limit() - start;
+            int frameLength = frameLength(in, start, available);
+            if (frameLength < 0 || frameLength > available) {
+                in.get(pending, 0, available);
+                pendingLength = available;
+                return;
+            }
+            if (deliver(in, start, frameLength, listener)) {
+                in.position(start + frameLength);
+            } else {
+                in.position(start + 1);
+                bytesSkipped++;
+            }
+        }
+    }
+
+    // Feeds the carried-over bytes until they are used up; false when the input ran out first.
+    // A frame that fails inside the carry buffer is rescanned from its second byte, like in decode.
+    private boolean completePending(ByteBuffer in, Listener listener) {
+        while (pendingLength > 0) {
+            int frameLength = frameLength(pendingView, 0, pendingLength);
+            if (frameLength > 0 && pendingLength >= frameLength) {
+                if (deliver(pendingView, 0, frameLength, listener)) {
+                    dropPending(frameLength);
+                } else {
+                    bytesSkipped++;
+                    dropPending(1);
+                }
+                continue;
+            }
+            if (!in.hasRemaining()) {
+                return false;
+            }
+            int target = frameLength < 0 ? pendingLength + 1 : frameLength;
+            int n = Math.min(target - pendingLength, in.remaining());
+            in.get(pending, pendingLength, n);
+            pendingLength += n;
+        }
+        return true;
+    }
+
+    // Drops count bytes from the front of the carry buffer, then anything up to the next magic byte
+    private void dropPending(int count) {
+        int next = count;
+        while (next < pendingLength && (pending[next] & 0xFF) != MAGIC_V1 && (pending[next] & 0xFF) != MAGIC_V2) {
+            next++;
+            bytesSkipped++;
+        }
+        pendingLength -= next;
+        System.arraycopy(pending, next, pending, 0, pendingLength);
+    }
+
+    // Full frame length, or -1 while the header bytes that determine it are missing
+    private static int frameLength(ByteBuffer buffer, int start, int available) {
+        if (available < 2) {
+            return -1;
+        }
+        int payloadLength = buffer.get(start + 1) & 0xFF;
+        if ((buffer.get(start) & 0xFF) == MAGIC_V1) {
+            return HEADER_LENGTH_V1 + payloadLength + 2;
+        }
+        if (available < 3) {
+            return -1;
+        }
+        boolean signed = (buffer.get(start + 2) & 0x01) != 0;
+        return HEADER_LENGTH_V2 + payloadLength + 2 + (signed ? SIGNATURE_LENGTH : 0);
+    }
+
+    private boolean deliver(ByteBuffer buffer, int start, int frameLength, Listener listener) {
+        frame.readHeader(buffer, start);
+        int crcExtra = MavlinkCrc.crcExtra(frame.getMessageId());
+        int crcOffset = start + frame.headerLength() + frame.getPayloadLength();
+        // Without a CRC_EXTRA the length byte cannot be verified, so the frame is not skipped whole
+        if (crcExtra < 0) {
+            unknownMessages++;
+            return false;
+        }
+        int expected = (buffer.get(crcOffset) & 0xFF) | (buffer.get(crcOffset + 1) & 0xFF) << 8;
+        if (MavlinkCrc.calculate(buffer, start + 1, crcOffset, crcExtra) != expected) {
+            crcFailures++;
+            return false;
+        }
+        frame.setChecksum(expected);
+        listener.onFrame(frame, buffer, start, frameLength);
+        if (!listener.acceptFrame(frame)) {
+            framesDropped++;
+            return true;
+        }
+        if (!messageFilter.test(frame.getMessageId())) {
+            messagesFiltered++;
+            return true;
+        }
+        byte[] payloadBytes = new byte[frame.getPayloadLength()];
+        buffer.get(start + frame.headerLength(), payloadBytes);
+        Object payload;
+        try {
+            payload = deserializer.deserialize(payloadBytes, MavlinkCrc.messageType(frame.getMessageId()));
+        } catch (RuntimeException e) {
+            payload = null;
+        }
+        if (payload != null) {
+            framesDecoded++;
+            listener.onMessage(frame, payload);
+        } else {
+            parseErrors++;
+        }
+        return true;
+    }
+}
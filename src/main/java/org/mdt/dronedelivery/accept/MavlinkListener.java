@@ -1,75 +1,144 @@
 package org.mdt.dronedelivery.accept;
 
-import io.dronefleet.mavlink.MavlinkConnection;
-import io.dronefleet.mavlink.MavlinkMessage;
-import org.mdt.dronedelivery.process.MavlinkMessageHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordingStream;
+import org.mdt.dronedelivery.link.LinkMonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.net.DatagramPacket;
 import java.net.DatagramSocket;
-import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 @Component
-public class MavlinkListener {
+@ConditionalOnProperty(name = "drone-delivery.ingest-mode", havingValue = "blocking", matchIfMissing = true)
+public class MavlinkListener implements PortListener {
 
     private static final Logger logger = LoggerFactory.getLogger(MavlinkListener.class);
+    // A platform thread blocked in receive() does not see interrupts; it checks this often
+    private static final int INTERRUPT_POLL_MS = 1000;
     private final ExecutorService executorService;
-    private final int listenerTimeoutMs;
-    private final MavlinkMessageHandler mavlinkMessageHandler;
+    private final boolean virtualThreads;
+    private final LinkMonitor linkMonitor;
+    private final FrameRouter frameRouter;
+    private final DatagramBufferPool datagramBufferPool;
+    private final AtomicInteger activeListeners = new AtomicInteger();
+    private final Counter pinnedEvents;
+    private RecordingStream pinningStream;
 
     public MavlinkListener(
             @Value("${drone-delivery.thread-pool-size:100}") int threadPoolSize,
-            @Value("${drone-delivery.listener-timeout-ms:30000}") int listenerTimeoutMs,
-            MavlinkMessageHandler mavlinkMessageHandler) {
-        this.executorService = Executors.newFixedThreadPool(threadPoolSize);
-        this.listenerTimeoutMs = listenerTimeoutMs;
-        this.mavlinkMessageHandler = mavlinkMessageHandler;
+            @Value("${drone-delivery.listener-executor:fixed}") String listenerExecutor,
+            LinkMonitor linkMonitor,
+            FrameRouter frameRouter,
+            DatagramBufferPool datagramBufferPool,
+            MeterRegistry meterRegistry) {
+        this.virtualThreads = "virtual".equalsIgnoreCase(listenerExecutor);
+        this.executorService = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mavlink-listener-", 0).factory())
+                : Executors.newFixedThreadPool(threadPoolSize);
+        this.linkMonitor = linkMonitor;
+        this.frameRouter = frameRouter;
+        this.datagramBufferPool = datagramBufferPool;
+
+        String mode = virtualThreads ? "virtual" : "fixed";
+        Gauge.builder("mavlink.listeners.active", activeListeners, AtomicInteger::get)
+                .tag("mode", mode)
+                .register(meterRegistry);
+        Gauge.builder("mavlink.listeners.queued", this, MavlinkListener::queuedListeners)
+                .tag("mode", mode)
+                .register(meterRegistry);
+        this.pinnedEvents = Counter.builder("mavlink.listeners.pinned")
+                .description("Carrier-thread pinning events raised by listener virtual threads")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        if (virtualThreads) {
+            startPinningStream();
+        }
+        logger.info("MAVLink listeners run on {} threads", mode);
+    }
+
+    private void startPinningStream() {
+        try {
+            pinningStream = new RecordingStream();
+            pinningStream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(20));
+            pinningStream.onEvent("jdk.VirtualThreadPinned", event -> pinnedEvents.increment());
+            pinningStream.startAsync();
+        } catch (Exception e) {
+            logger.warn("Virtual thread pinning events unavailable: {}", e.getMessage());
+        }
     }
 
-    public Future<?> listenOnPort(int port, Consumer<Integer> onStopCallback) {
-        return executorService.submit(() -> {
+    private int queuedListeners() {
+        if (executorService instanceof ThreadPoolExecutor pool) {
+            return pool.getQueue().size();
+        }
+        return 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+        try {
+            executorService.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (pinningStream != null) {
+            pinningStream.close();
+        }
+    }
+
+    // The scanner's channel is switched to blocking mode and read through its socket
+    @Override
+    public Future<?> adopt(int port, DatagramChannel channel, ByteBuffer firstDatagram, InetSocketAddress firstSender,
+                           Consumer<Integer> onStopCallback) {
+        Runnable listener = () -> {
+            activeListeners.incrementAndGet();
+            // Idle ports are released by the LinkMonitor through onStopCallback, which cancels this task
+            LinkMonitor.Link link = linkMonitor.port(port, () -> onStopCallback.accept(port));
             DatagramSocket udpSocket = null;
+            ByteBuffer buffer = datagramBufferPool.acquireHeap();
             try {
-                udpSocket = new DatagramSocket(null);
-                udpSocket.setReuseAddress(true);
-                udpSocket.bind(new InetSocketAddress("0.0.0.0", port));
-                udpSocket.setSoTimeout(listenerTimeoutMs);
+                channel.configureBlocking(true);
+                udpSocket = channel.socket();
+                udpSocket.setSoTimeout(INTERRUPT_POLL_MS);
 
-                UdpInputStream udpInputStream = new UdpInputStream(udpSocket);
-                MavlinkConnection mavlinkConnection = MavlinkConnection.create(udpInputStream, null);
+                DatagramPacket packet = new DatagramPacket(buffer.array(), buffer.capacity());
+                FrameRouter.PortSink sink = frameRouter.forPort(port);
 
-                logger.info("Listener started on port {}", port);
+                logger.info("Listener started on port {} (adopted from scanner)", port);
+                link.touch();
+                sink.decode(firstDatagram, firstSender.getAddress());
 
-                long lastPacketTime = System.currentTimeMillis();
                 while (!Thread.currentThread().isInterrupted()) {
                     try {
-                        MavlinkMessage<?> message = mavlinkConnection.next();
-                        if (message != null) {
-                            lastPacketTime = System.currentTimeMillis();
-                            InetAddress sender = udpInputStream.getSenderAddress();
-                            mavlinkMessageHandler.handleMessage(message, port, udpSocket, sender);
-                            logger.info("MAVLink message {} from {} on port {}",
-                                    message.getPayload().getClass().getSimpleName(), sender, port);
-                        } else if (System.currentTimeMillis() - lastPacketTime > listenerTimeoutMs) {
-                            logger.info("No packets on port {} for {}ms, stopping listener", port, listenerTimeoutMs);
-                            onStopCallback.accept(port);
-                            return;
-                        }
+                        packet.setLength(buffer.capacity());
+                        udpSocket.receive(packet);
+                        link.touch();
+                        buffer.clear().limit(packet.getLength());
+                        sink.decode(buffer, packet.getAddress());
                     } catch (SocketTimeoutException e) {
-                        if (System.currentTimeMillis() - lastPacketTime > listenerTimeoutMs) {
-                            logger.info("No packets on port {} for {}ms, stopping listener", port, listenerTimeoutMs);
-                            onStopCallback.accept(port);
-                            return;
-                        }
+                        // Loop back to the interrupt check
                     } catch (IOException e) {
                         if (Thread.currentThread().isInterrupted()) {
                             logger.info("Listener thread interrupted for UDP port: {}", port);
@@ -83,8 +152,16 @@ public class MavlinkListener {
             } catch (IOException e) {
                 if (!Thread.currentThread().isInterrupted()) {
                     logger.error("Error initializing UDP socket for port {}: {}", port, e.getMessage());
+                    onStopCallback.accept(port);
                 }
             } finally {
+                if (udpSocket == null) {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        logger.error("Error closing UDP channel for port {}: {}", port, e.getMessage());
+                    }
+                }
                 if (udpSocket != null && !udpSocket.isClosed()) {
                     try {
                         udpSocket.close();
@@ -93,9 +170,29 @@ public class MavlinkListener {
                         logger.error("Error closing UDP socket for port {}: {}", port, e.getMessage());
                     }
                 }
+                link.close();
+                datagramBufferPool.release(buffer);
+                activeListeners.decrementAndGet();
             }
-        });
+        };
+        FutureTask<Void> future = new FutureTask<>(listener, null) {
+            @Override
+            protected void done() {
+                // Cancelled while still queued: the adopted channel would otherwise stay bound
+                if (isCancelled() && channel.isOpen()) {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        logger.error("Error closing UDP channel for port {}: {}", port, e.getMessage());
+                    }
+                }
+            }
+        };
+        executorService.execute(future);
+        int queued = queuedListeners();
+        if (queued > 0) {
+            logger.warn("Listener for port {} queued behind {} busy listener(s); pool size is exhausted", port, queued);
+        }
+        return future;
     }
-
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,302 @@
+package org.mdt.dronedelivery.accept;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.nio.NioChannelOption;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.mdt.dronedelivery.link.LinkMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Linux fast path: Netty's native epoll datagram channel. With max-datagram-size set, one
+// recvmmsg call fills a pooled direct buffer with up to batch-size datagrams; with
+// sockets-per-port > 1 a port gets several SO_REUSEPORT sockets, which the kernel load-balances
+// by source address across event loops. Decoding, recording and pipeline submission are the
+// FrameRouter's, as in the other engines. Falls back to Netty NIO where epoll is unavailable.
+@Component
+@ConditionalOnProperty(name = "drone-delivery.ingest-mode", havingValue = "netty-epoll")
+public class NettyEpollIngestEngine implements PortListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(NettyEpollIngestEngine.class);
+    private static final boolean NIO_REUSE_PORT = reusePortSupported();
+    private final boolean epoll;
+    private final EventLoopGroup group;
+    private final int socketsPerPort;
+    private final int maxDatagramSize;
+    private final int batchSize;
+    private final int receiveBufferBytes;
+    private final LinkMonitor linkMonitor;
+    private final FrameRouter frameRouter;
+
+    public NettyEpollIngestEngine(
+            @Value("${drone-delivery.netty.event-loops:0}") int eventLoops,
+            @Value("${drone-delivery.netty.sockets-per-port:1}") int socketsPerPort,
+            @Value("${drone-delivery.netty.max-datagram-size:2048}") int maxDatagramSize,
+            @Value("${drone-delivery.netty.batch-size:64}") int batchSize,
+            @Value("${drone-delivery.netty.receive-buffer-bytes:4194304}") int receiveBufferBytes,
+            LinkMonitor linkMonitor,
+            FrameRouter frameRouter) {
+        int threads = eventLoops > 0 ? eventLoops : Runtime.getRuntime().availableProcessors();
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory("mavlink-netty", true);
+        this.epoll = Epoll.isAvailable();
+        this.group = epoll ? new EpollEventLoopGroup(threads, threadFactory) : new NioEventLoopGroup(threads, threadFactory);
+        this.socketsPerPort = epoll ? Math.max(1, socketsPerPort) : 1;
+        this.maxDatagramSize = maxDatagramSize;
+        this.batchSize = Math.max(1, batchSize);
+        this.receiveBufferBytes = receiveBufferBytes;
+        this.linkMonitor = linkMonitor;
+        this.frameRouter = frameRouter;
+        if (!epoll) {
+            logger.warn("Native epoll unavailable ({}); Netty ingest falls back to NIO with one socket per port",
+                    Epoll.unavailabilityCause().getMessage());
+        }
+    }
+
+    private static boolean reusePortSupported() {
+        try (DatagramChannel probe = DatagramChannel.open()) {
+            return probe.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("Netty ingest started: {} transport, {} socket(s) per port, {} datagrams per read",
+                epoll ? "epoll" : "nio", socketsPerPort, epoll ? batchSize : 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        group.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+    }
+
+    // A native epoll channel cannot take over a JDK socket. The Netty sockets bind next to the
+    // scanner's channel (both SO_REUSEPORT) with reads held back; only then is the scanner's channel
+    // drained and closed, and its datagrams are decoded ahead of anything the new sockets receive.
+    // Where the port cannot be shared the scanner's channel is closed first and the gap accepted.
+    @Override
+    public Future<?> adopt(int port, DatagramChannel channel, ByteBuffer firstDatagram, InetSocketAddress sender,
+                           Consumer<Integer> onStopCallback) {
+        PortBinding binding = new PortBinding(port, onStopCallback);
+        boolean bound = binding.bind(false);
+        List<Received> backlog = new ArrayList<>();
+        backlog.add(new Received(firstDatagram, sender));
+        drainAndClose(port, channel, backlog);
+        if (!bound && !binding.bind(true)) {
+            binding.fail();
+            return binding;
+        }
+        binding.start(backlog);
+        return binding;
+    }
+
+    private void drainAndClose(int port, DatagramChannel channel, List<Received> backlog) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(maxDatagramSize);
+            InetSocketAddress from;
+            while ((from = (InetSocketAddress) channel.receive(buffer.clear())) != null) {
+                ByteBuffer copy = ByteBuffer.allocate(buffer.position());
+                copy.put(buffer.flip()).flip();
+                backlog.add(new Received(copy, from));
+            }
+        } catch (IOException e) {
+            logger.error("Error draining scanner channel for port {}: {}", port, e.getMessage());
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.error("Error closing scanner channel for port {}: {}", port, e.getMessage());
+        }
+    }
+
+    private Bootstrap bootstrap(PortBinding binding) {
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .option(ChannelOption.SO_RCVBUF, receiveBufferBytes)
+                // Reads start once the scanner's backlog is queued, see PortBinding.start
+                .option(ChannelOption.AUTO_READ, false)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel channel) {
+                        channel.pipeline().addLast(new DatagramHandler(binding));
+                    }
+                });
+        if (epoll) {
+            bootstrap.channel(EpollDatagramChannel.class)
+                    // A non-zero payload size makes Netty read with recvmmsg, slicing the
+                    // receive buffer into maxDatagramSize pieces
+                    .option(EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE, maxDatagramSize)
+                    .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(maxDatagramSize * batchSize))
+                    .option(EpollChannelOption.SO_REUSEPORT, true);
+        } else {
+            bootstrap.channel(NioDatagramChannel.class)
+                    .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(maxDatagramSize));
+            if (NIO_REUSE_PORT) {
+                bootstrap.option(NioChannelOption.of(StandardSocketOptions.SO_REUSEPORT), true);
+            }
+        }
+        return bootstrap;
+    }
+
+    // All sockets bound for one port; done when the port is released
+    private final class PortBinding extends CompletableFuture<Void> {
+
+        private final int port;
+        private final Consumer<Integer> onStopCallback;
+        private final List<Channel> channels = new ArrayList<>();
+        // Shared by every socket of the port; touch() is safe from several event loops
+        private volatile LinkMonitor.Link link;
+
+        private PortBinding(int port, Consumer<Integer> onStopCallback) {
+            this.port = port;
+            this.onStopCallback = onStopCallback;
+        }
+
+        // Binds every socket of the port with reads off; on failure the sockets bound so far are
+        // closed again and the caller decides whether to retry or give up
+        boolean bind(boolean retry) {
+            Bootstrap bootstrap = bootstrap(this);
+            for (int i = 0; i < socketsPerPort; i++) {
+                ChannelFuture bound = bootstrap.bind(new InetSocketAddress("0.0.0.0", port)).awaitUninterruptibly();
+                if (!bound.isSuccess()) {
+                    if (retry) {
+                        logger.error("Error binding UDP port {}: {}", port, bound.cause().getMessage());
+                    } else {
+                        logger.debug("Could not bind UDP port {} next to the scanner: {}", port,
+                                bound.cause().getMessage());
+                    }
+                    closeChannels();
+                    return false;
+                }
+                synchronized (channels) {
+                    channels.add(bound.channel());
+                }
+            }
+            return true;
+        }
+
+        void start(List<Received> backlog) {
+            link = linkMonitor.port(port, () -> onStopCallback.accept(port));
+            Channel first = channels.get(0);
+            DatagramHandler handler = first.pipeline().get(DatagramHandler.class);
+            // Queued on the first socket's event loop ahead of its own reads
+            first.eventLoop().execute(() -> {
+                backlog.forEach(handler::decode);
+                first.config().setAutoRead(true);
+            });
+            for (int i = 1; i < channels.size(); i++) {
+                channels.get(i).config().setAutoRead(true);
+            }
+            logger.info("Listener started on port {} ({} socket(s))", port, channels.size());
+        }
+
+        void fail() {
+            complete(null);
+            onStopCallback.accept(port);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            close();
+            return cancelled;
+        }
+
+        void close() {
+            complete(null);
+            LinkMonitor.Link current = link;
+            if (current != null) {
+                current.close();
+            }
+            closeChannels();
+        }
+
+        private void closeChannels() {
+            synchronized (channels) {
+                channels.forEach(Channel::close);
+                channels.clear();
+            }
+        }
+    }
+
+    private static final class Received {
+
+        private final ByteBuffer datagram;
+        private final InetSocketAddress sender;
+
+        private Received(ByteBuffer datagram, InetSocketAddress sender) {
+            this.datagram = datagram;
+            this.sender = sender;
+        }
+    }
+
+    // One per socket: runs on that socket's event loop, so its decoder is never shared
+    private final class DatagramHandler extends SimpleChannelInboundHandler<DatagramPacket> {
+
+        private final PortBinding binding;
+        private final int port;
+        private final FrameRouter.PortSink sink;
+
+        private DatagramHandler(PortBinding binding) {
+            this.binding = binding;
+            this.port = binding.port;
+            this.sink = frameRouter.forPort(port);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+            ByteBuf content = packet.content();
+            decode(content.nioBuffer(content.readerIndex(), content.readableBytes()), packet.sender());
+        }
+
+        void decode(Received received) {
+            decode(received.datagram, received.sender);
+        }
+
+        private void decode(ByteBuffer buffer, InetSocketAddress from) {
+            binding.link.touch();
+            sink.decode(buffer, from.getAddress());
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            logger.error("IO error on UDP port {}: {}", port, cause.getMessage());
+        }
+    }
+}
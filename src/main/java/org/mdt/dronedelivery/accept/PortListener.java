@@ -0,0 +1,18 @@
+package org.mdt.dronedelivery.accept;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// Ingest strategy that takes over a port once PortScanner has seen traffic on it.
+// Selected with drone-delivery.ingest-mode (blocking | selector | netty-epoll).
+public interface PortListener {
+
+    // Takes ownership of the channel PortScanner already bound and decodes the datagram that woke
+    // the scanner first, so activating a port loses no packets and needs no close/rebind. The
+    // channel is still non-blocking and no longer registered with the scanner's selector.
+    Future<?> adopt(int port, DatagramChannel channel, ByteBuffer firstDatagram, InetSocketAddress sender,
+                    Consumer<Integer> onStopCallback);
+}
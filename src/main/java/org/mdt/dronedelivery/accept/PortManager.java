@@ -6,18 +6,41 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
 
-@Getter
+// The set of ports to scan as a bitset plus a versioned log of changes. Every accepted change
+// bumps the version and appends (version, port, added) entries; PortScanner replays the entries
+// after the version it last applied, woken by a change listener instead of re-reading the set.
 @Component
 public class PortManager {
 
     private static final Logger logger = LoggerFactory.getLogger(PortManager.class);
-    private final List<Integer> portsToScan = new CopyOnWriteArrayList<>();
+    // Older entries are dropped; a consumer that falls further behind resyncs from the bitset
+    private static final int MAX_LOGGED_CHANGES = 1 << 16;
+
+    @Getter
     private final int maxPorts;
+    @Getter
     private final int minPort;
+    @Getter
     private final int maxPort;
+    private final long[] ports = new long[(1 << 16) / Long.SIZE];
+    private final ArrayDeque<Change> changes = new ArrayDeque<>();
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private int size;
+    private long version;
+    // Newest version with entries dropped from the log; only later versions replay complete
+    private long evictedVersion;
+
+    @FunctionalInterface
+    public interface ChangeVisitor {
+        void onChange(int port, boolean added);
+    }
 
     public PortManager(
             @Value("${drone-delivery.max-ports:100}") int maxPorts,
@@ -28,38 +51,200 @@ public class PortManager {
         this.maxPort = maxPort;
     }
 
-    public synchronized void addPortsToScan(List<Integer> newPorts) {
-        int currentSize = portsToScan.size();
-        for (Integer port : newPorts) {
-            if (currentSize >= maxPorts) {
-                logger.error("Cannot add port {}: Maximum port limit ({}) reached.", port, maxPorts);
-                continue;
+    // Lenient: invalid ports and ports over the limit are logged and skipped
+    public void addPortsToScan(List<Integer> newPorts) {
+        List<Integer> accepted = new ArrayList<>();
+        synchronized (this) {
+            int projected = size;
+            for (Integer port : newPorts) {
+                if (!isValidPort(port)) {
+                    logger.error("Invalid port {}: Port must be between {} and {}.", port, minPort, maxPort);
+                } else if (contains(port) || accepted.contains(port)) {
+                    logger.debug("Port {} is already in the scan list, skipping.", port);
+                } else if (projected >= maxPorts) {
+                    logger.error("Cannot add port {}: Maximum port limit ({}) reached.", port, maxPorts);
+                } else {
+                    accepted.add(port);
+                    projected++;
+                }
+            }
+            apply(accepted, List.of());
+        }
+        notifyListeners();
+    }
+
+    public void removePortsFromScan(List<Integer> portsToRemove) {
+        synchronized (this) {
+            apply(List.of(), portsToRemove);
+        }
+        notifyListeners();
+    }
+
+    // All-or-nothing: throws IllegalArgumentException without changing anything if any port is out
+    // of range or the result would exceed max-ports. Returns the new version.
+    public long update(Collection<Integer> add, Collection<Integer> remove) {
+        long applied;
+        synchronized (this) {
+            int projected = size;
+            // Each port counts once per list however often it is repeated
+            long[] removing = new long[ports.length];
+            long[] adding = new long[ports.length];
+            for (Integer port : remove) {
+                if (!isValidPort(port)) {
+                    throw new IllegalArgumentException("Invalid port " + port + ": must be between " + minPort + " and " + maxPort);
+                }
+                if (!isSet(removing, port) && contains(port)) {
+                    set(removing, port);
+                    projected--;
+                }
+            }
+            for (Integer port : add) {
+                if (!isValidPort(port)) {
+                    throw new IllegalArgumentException("Invalid port " + port + ": must be between " + minPort + " and " + maxPort);
+                }
+                // Removed and re-added in one request counts as staying
+                if (!isSet(adding, port)) {
+                    set(adding, port);
+                    if (!contains(port) || isSet(removing, port)) {
+                        projected++;
+                    }
+                }
+            }
+            if (projected > maxPorts) {
+                throw new IllegalArgumentException("Update would scan " + projected + " ports; the limit is " + maxPorts);
+            }
+            apply(add, remove);
+            applied = version;
+        }
+        notifyListeners();
+        return applied;
+    }
+
+    // Removals first, so a port in both lists ends up scanned
+    private void apply(Collection<Integer> add, Collection<Integer> remove) {
+        long next = version + 1;
+        int removed = 0;
+        int added = 0;
+        for (Integer port : remove) {
+            if (isValidPort(port) && contains(port)) {
+                clear(ports, port);
+                size--;
+                log(next, port, false);
+                removed++;
             }
-            if (!isValidPort(port)) {
-                logger.error("Invalid port {}: Port must be between {} and {}.", port, minPort, maxPort);
-                continue;
+        }
+        for (Integer port : add) {
+            if (!contains(port)) {
+                set(ports, port);
+                size++;
+                log(next, port, true);
+                added++;
             }
-            if (!portsToScan.contains(port)) {
-                portsToScan.add(port);
-                currentSize++;
-                logger.info("Added port {} to scan list. Current ports: {}", port, portsToScan);
-            } else {
-                logger.info("Port {} is already in the scan list, skipping.", port);
+        }
+        if (added + removed == 0) {
+            return;
+        }
+        version = next;
+        if (added + removed == 1) {
+            logger.info("{} port {} ({} ports, version {})", added == 1 ? "Added" : "Removed",
+                    changes.peekLast().port, size, version);
+        } else {
+            logger.info("Added {} and removed {} ports ({} ports, version {})", added, removed, size, version);
+        }
+    }
+
+    private void log(long changeVersion, int port, boolean added) {
+        if (changes.size() == MAX_LOGGED_CHANGES) {
+            evictedVersion = changes.pollFirst().version;
+        }
+        changes.addLast(new Change(changeVersion, port, added));
+    }
+
+    // Replays changes made after sinceVersion in order and returns the version reached, or -1 when
+    // the log no longer holds every change after it and the caller must resync with forEachPort
+    public synchronized long changesSince(long sinceVersion, ChangeVisitor visitor) {
+        if (sinceVersion == version) {
+            return version;
+        }
+        // Eviction is per entry, so the oldest retained version may be only partly in the log
+        if (sinceVersion < 0 || sinceVersion < evictedVersion) {
+            return -1;
+        }
+        for (Change change : changes) {
+            if (change.version > sinceVersion) {
+                visitor.onChange(change.port, change.added);
             }
         }
+        return version;
     }
 
-    public synchronized void removePortsFromScan(List<Integer> portsToRemove) {
-        for (Integer port : portsToRemove) {
-            if (portsToScan.remove(port)) {
-                logger.info("Removed port {} from scan list. Current ports: {}", port, portsToScan);
-            } else {
-                logger.info("Port {} not in scan list, skipping.", port);
+    // Visits every scanned port in ascending order and returns the version the snapshot belongs to
+    public synchronized long forEachPort(IntConsumer consumer) {
+        for (int word = 0; word < ports.length; word++) {
+            for (long bits = ports[word]; bits != 0; bits &= bits - 1) {
+                consumer.accept(word * Long.SIZE + Long.numberOfTrailingZeros(bits));
             }
         }
+        return version;
+    }
+
+    public List<Integer> getPortsToScan() {
+        List<Integer> snapshot = new ArrayList<>();
+        forEachPort(snapshot::add);
+        return snapshot;
+    }
+
+    public synchronized boolean contains(int port) {
+        return port >= 0 && port < 1 << 16 && isSet(ports, port);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long version() {
+        return version;
+    }
+
+    // Run after every accepted change, outside the lock; PortScanner wakes its selector here
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
     }
 
-    private boolean isValidPort(int port) {
-        return port >= minPort && port <= maxPort;
+    private void notifyListeners() {
+        changeListeners.forEach(Runnable::run);
+    }
+
+    private boolean isValidPort(Integer port) {
+        return port != null && port >= minPort && port <= maxPort && port < 1 << 16;
+    }
+
+    private static boolean isSet(long[] bits, int port) {
+        return (bits[port >>> 6] & 1L << port) != 0;
+    }
+
+    private static void set(long[] bits, int port) {
+        bits[port >>> 6] |= 1L << port;
+    }
+
+    private static void clear(long[] bits, int port) {
+        bits[port >>> 6] &= ~(1L << port);
+    }
+
+    private static final class Change {
+
+        private final long version;
+        private final int port;
+        private final boolean added;
+
+        private Change(long version, int port, boolean added) {
+            this.version = version;
+            this.port = port;
+            this.added = added;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package org.mdt.dronedelivery.accept;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Per-port ingest counters. The decoder keeps plain long counts on the receive thread; they are
+// pushed into Micrometer as deltas once per datagram instead of once per event.
+final class PortMetrics {
+
+    private final Counter datagrams;
+    private final Counter crcFailures;
+    private final Counter parseErrors;
+    private final Counter unknownMessages;
+    private final Counter framesDropped;
+    private long lastCrcFailures;
+    private long lastParseErrors;
+    private long lastUnknownMessages;
+    private long lastFramesDropped;
+
+    PortMetrics(MeterRegistry meterRegistry, int port) {
+        String tag = String.valueOf(port);
+        this.datagrams = Counter.builder("mavlink.datagrams.received")
+                .tag("port", tag)
+                .register(meterRegistry);
+        this.crcFailures = Counter.builder("mavlink.frames.crc.failures")
+                .tag("port", tag)
+                .register(meterRegistry);
+        this.parseErrors = Counter.builder("mavlink.frames.parse.errors")
+                .description("Frames with a valid CRC the dialect could not parse")
+                .tag("port", tag)
+                .register(meterRegistry);
+        this.unknownMessages = Counter.builder("mavlink.frames.unknown")
+                .description("Frames whose message id is not in the dialect")
+                .tag("port", tag)
+                .register(meterRegistry);
+        this.framesDropped = Counter.builder("mavlink.frames.duplicates")
+                .description("Frames already received on another port of the same vehicle (LinkAggregator)")
+                .tag("port", tag)
+                .register(meterRegistry);
+    }
+
+    void afterDatagram(MavlinkFrameDecoder decoder) {
+        datagrams.increment();
+        if (decoder.getCrcFailures() != lastCrcFailures) {
+            crcFailures.increment(decoder.getCrcFailures() - lastCrcFailures);
+            lastCrcFailures = decoder.getCrcFailures();
+        }
+        if (decoder.getParseErrors() != lastParseErrors) {
+            parseErrors.increment(decoder.getParseErrors() - lastParseErrors);
+            lastParseErrors = decoder.getParseErrors();
+        }
+        if (decoder.getUnknownMessages() != lastUnknownMessages) {
+            unknownMessages.increment(decoder.getUnknownMessages() - lastUnknownMessages);
+            lastUnknownMessages = decoder.getUnknownMessages();
+        }
+        if (decoder.getFramesDropped() != lastFramesDropped) {
+            framesDropped.increment(decoder.getFramesDropped() - lastFramesDropped);
+            lastFramesDropped = decoder.getFramesDropped();
+        }
+    }
+}
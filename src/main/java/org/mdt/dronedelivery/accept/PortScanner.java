@@ -13,47 +13,66 @@ import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
 
+// Binds a non-blocking channel for every idle port in PortManager and hands a port to the
+// PortListener when its first datagram arrives. Port set changes and released listeners wake the
+// selector, and only the ports they name are opened or closed.
 @Component
 public class PortScanner {
 
     private static final Logger logger = LoggerFactory.getLogger(PortScanner.class);
     private final PortManager portManager;
-    private final MavlinkListener mavlinkListener;
+    private final PortListener portListener;
     private final Map<Integer, Future<?>> activeListeners = new ConcurrentHashMap<>();
     private final int scannerTimeoutMs;
-    private final int bufferSize;
-    private final Set<Integer> lastScannedPorts = ConcurrentHashMap.newKeySet();
+    private final DatagramBufferPool datagramBufferPool;
+    // Ports whose listener stopped, to be watched by the scanner again
+    private final ConcurrentLinkedQueue<Integer> releasedPorts = new ConcurrentLinkedQueue<>();
+    // Ports that should have a scanner channel but do not yet, including failed binds to retry
+    private final Set<Integer> pendingPorts = new HashSet<>();
+    private volatile Selector selector;
+    private volatile long appliedVersion = -1;
 
     public PortScanner(
             PortManager portManager,
-            MavlinkListener mavlinkListener,
+            PortListener portListener,
             @Value("${drone-delivery.scanner-timeout-ms:5000}") int scannerTimeoutMs,
-            @Value("${drone-delivery.buffer-size:1024}") int bufferSize) {
+            DatagramBufferPool datagramBufferPool) {
         this.portManager = portManager;
-        this.mavlinkListener = mavlinkListener;
+        this.portListener = portListener;
         this.scannerTimeoutMs = scannerTimeoutMs;
-        this.bufferSize = bufferSize;
+        this.datagramBufferPool = datagramBufferPool;
     }
 
     public void scanPorts() {
         Map<Integer, DatagramChannel> channels = new ConcurrentHashMap<>();
+        ByteBuffer buffer = datagramBufferPool.acquire();
+        Runnable wakeUp = this::wakeUp;
         try (Selector selector = Selector.open()) {
+            this.selector = selector;
+            portManager.addChangeListener(wakeUp);
             while (!Thread.currentThread().isInterrupted()) {
-                updateChannels(channels, selector);
-                removeChannel(channels);
-                processIncomingPackets(selector, channels);
+                applyPortChanges(channels);
+                openPendingPorts(channels, selector);
+                processIncomingPackets(selector, channels, buffer);
             }
         } catch (IOException e) {
             if (!Thread.currentThread().isInterrupted()) {
                 logger.error("Error in port scanner: {}", e.getMessage());
             }
         } finally {
+            portManager.removeChangeListener(wakeUp);
+            this.selector = null;
+            datagramBufferPool.release(buffer);
             channels.values().forEach(channel -> {
                 try {
                     channel.close();
@@ -63,47 +82,43 @@ public class PortScanner {
             });
             channels.clear();
             activeListeners.clear();
-            lastScannedPorts.clear();
+            releasedPorts.clear();
+            pendingPorts.clear();
+            appliedVersion = -1;
             logger.info("Port scanner stopped, all channels closed.");
         }
     }
 
-    private void processIncomingPackets(Selector selector, Map<Integer, DatagramChannel> channels) {
+    private void processIncomingPackets(Selector selector, Map<Integer, DatagramChannel> channels, ByteBuffer buffer) {
         try {
             int selected = selector.select(scannerTimeoutMs);
-            logger.debug("Selected {} channels for reading", selected);
+            logger.trace("Selected {} channels for reading", selected);
+            List<Handoff> handoffs = new ArrayList<>();
             for (SelectionKey key : selector.selectedKeys()) {
                 if (key.isReadable()) {
                     DatagramChannel channel = (DatagramChannel) key.channel();
                     int port = ((InetSocketAddress) channel.getLocalAddress()).getPort();
-                    ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+                    buffer.clear();
                     SocketAddress sender = channel.receive(buffer);
                     if (sender != null) {
-                        logger.info("Received packet on port {} from {} (size={} bytes)", port, sender, buffer.position());
-                        synchronized (this) {
-                            if (!activeListeners.containsKey(port)) {
-                                try {
-                                    channel.close();
-                                    channels.remove(port);
-                                    Future<?> future = mavlinkListener.listenOnPort(port, this::stopListeningOnPort);
-                                    Future<?> existing = activeListeners.putIfAbsent(port, future);
-                                    if (existing == null) {
-                                        logger.info("Started MAVLink UDP listener on port {}", port);
-                                    } else {
-                                        future.cancel(true);
-                                        logger.debug("Listener already active on port {}, cancelling new attempt", port);
-                                    }
-                                } catch (IOException e) {
-                                    logger.error("Error closing channel for port {}: {}", port, e.getMessage());
-                                }
-                            }
-                        }
+                        // Only the first datagram of a burst reaches the scanner; the listener takes the rest
+                        logger.debug("Received packet on port {} from {} (size={} bytes)", port, sender, buffer.position());
+                        key.cancel();
+                        channels.remove(port);
+                        ByteBuffer first = ByteBuffer.allocate(buffer.position());
+                        first.put(buffer.flip()).flip();
+                        handoffs.add(new Handoff(port, channel, first, (InetSocketAddress) sender));
                     } else {
                         logger.debug("No data received on port {}", port);
                     }
                 }
             }
             selector.selectedKeys().clear();
+            if (!handoffs.isEmpty()) {
+                // Completes the cancellations so the channels are free to change owner and blocking mode
+                selector.selectNow();
+                handoffs.forEach(this::handOff);
+            }
         } catch (IOException e) {
             if (!Thread.currentThread().isInterrupted()) {
                 logger.error("Error in selector: {}", e.getMessage());
@@ -111,38 +126,123 @@ public class PortScanner {
         }
     }
 
-    private void removeChannel(Map<Integer, DatagramChannel> channels) {
-        channels.entrySet().removeIf(entry -> {
-            Integer port = entry.getKey();
-            if (!portManager.getPortsToScan().contains(port)) {
-                try {
-                    entry.getValue().close();
-                    logger.info("Closed channel for removed port {}", port);
-                    return true;
-                } catch (IOException e) {
-                    logger.error("Error closing channel for port {}: {}", port, e.getMessage());
-                    return true;
-                }
+    // The bound channel and the datagram that woke it move to the listener as they are
+    private synchronized void handOff(Handoff handoff) {
+        int port = handoff.port;
+        if (activeListeners.containsKey(port)) {
+            logger.debug("Listener already active on port {}, closing scanner channel", port);
+            closeQuietly(handoff.channel, port);
+            return;
+        }
+        try {
+            Future<?> future = portListener.adopt(port, handoff.channel, handoff.firstDatagram,
+                    handoff.sender, this::stopListeningOnPort);
+            if (future.isDone()) {
+                // Failed inside adopt (the Netty engine binds synchronously), so its stop callback
+                // found nothing to stop; watch the port again instead of keeping a dead listener
+                releasedPorts.add(port);
+                wakeUp();
+                return;
             }
-            return false;
-        });
+            activeListeners.put(port, future);
+            logger.info("Started MAVLink UDP listener on port {}", port);
+        } catch (RuntimeException e) {
+            logger.error("Could not hand port {} to the listener: {}", port, e.getMessage());
+            closeQuietly(handoff.channel, port);
+            releasedPorts.add(port);
+            wakeUp();
+        }
     }
 
-    private void updateChannels(Map<Integer, DatagramChannel> channels, Selector selector) {
-        Set<Integer> portsToScan = portManager.getPortsToScan().stream().collect(Collectors.toSet());
-        logger.debug("Scanning ports: {}", portsToScan);
-        for (Integer port : portsToScan) {
-            if (!channels.containsKey(port) && !activeListeners.containsKey(port)) {
-                try {
-                    openAndRegisterChannel(port, channels, selector);
-                } catch (IOException e) {
-                    logger.error("Failed to open channel for port {}: {}", port, e.getMessage());
-                }
+    private void closeQuietly(DatagramChannel channel, int port) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.error("Error closing channel for port {}: {}", port, e.getMessage());
+        }
+    }
+
+    // Replays the PortManager changes since the last pass; falls back to a full resync when the
+    // change log no longer reaches back to the applied version
+    private void applyPortChanges(Map<Integer, DatagramChannel> channels) {
+        long applied = appliedVersion;
+        if (applied >= 0 && applied == portManager.version()) {
+            return;
+        }
+        List<Integer> removed = new ArrayList<>();
+        long reached = portManager.changesSince(applied, (port, added) -> {
+            if (added) {
+                pendingPorts.add(port);
             } else {
-                logger.debug("Skipping port {}: already monitored={} or active={}",
-                        port, channels.containsKey(port), activeListeners.containsKey(port));
+                pendingPorts.remove(port);
+                removed.add(port);
+            }
+        });
+        // Closed outside the PortManager lock
+        for (Integer port : removed) {
+            if (!portManager.contains(port)) {
+                closeChannel(channels, port);
+                stopListeningOnPort(port);
             }
         }
+        if (reached < 0) {
+            logger.debug("Resynchronizing the port scanner with PortManager");
+            pendingPorts.clear();
+            reached = portManager.forEachPort(pendingPorts::add);
+            for (Integer port : List.copyOf(channels.keySet())) {
+                if (!pendingPorts.contains(port)) {
+                    closeChannel(channels, port);
+                }
+            }
+            for (Integer port : List.copyOf(activeListeners.keySet())) {
+                if (!pendingPorts.contains(port)) {
+                    stopListeningOnPort(port);
+                }
+            }
+        }
+        appliedVersion = reached;
+    }
+
+    private void openPendingPorts(Map<Integer, DatagramChannel> channels, Selector selector) {
+        for (Integer port; (port = releasedPorts.poll()) != null; ) {
+            if (portManager.contains(port)) {
+                pendingPorts.add(port);
+            }
+        }
+        for (Iterator<Integer> it = pendingPorts.iterator(); it.hasNext(); ) {
+            int port = it.next();
+            if (channels.containsKey(port) || activeListeners.containsKey(port)) {
+                it.remove();
+                continue;
+            }
+            try {
+                openAndRegisterChannel(port, channels, selector);
+                it.remove();
+            } catch (IOException e) {
+                // Kept pending and retried on the next pass
+                logger.error("Failed to open channel for port {}: {}", port, e.getMessage());
+            }
+        }
+    }
+
+    private void closeChannel(Map<Integer, DatagramChannel> channels, int port) {
+        DatagramChannel channel = channels.remove(port);
+        if (channel != null) {
+            closeQuietly(channel, port);
+            logger.info("Closed channel for removed port {}", port);
+        }
+    }
+
+    private void wakeUp() {
+        Selector current = selector;
+        if (current != null) {
+            current.wakeup();
+        }
+    }
+
+    // PortManager version whose changes the scanner has applied, -1 before the first pass
+    public long getAppliedVersion() {
+        return appliedVersion;
     }
 
     private void openAndRegisterChannel(int port, Map<Integer, DatagramChannel> channels, Selector selector) throws IOException {
@@ -150,6 +250,10 @@ public class PortScanner {
         try {
             channel.configureBlocking(false);
             channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            // Lets a listener that cannot adopt this channel bind the port before it is closed
+            if (channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+                channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
             channel.bind(new InetSocketAddress("0.0.0.0", port));
             channel.register(selector, SelectionKey.OP_READ);
             channels.put(port, channel);
@@ -162,6 +266,21 @@ public class PortScanner {
         }
     }
 
+    private static final class Handoff {
+
+        private final int port;
+        private final DatagramChannel channel;
+        private final ByteBuffer firstDatagram;
+        private final InetSocketAddress sender;
+
+        private Handoff(int port, DatagramChannel channel, ByteBuffer firstDatagram, InetSocketAddress sender) {
+            this.port = port;
+            this.channel = channel;
+            this.firstDatagram = firstDatagram;
+            this.sender = sender;
+        }
+    }
+
     public synchronized void stopAllListeners() {
         activeListeners.keySet().forEach(this::stopListeningOnPort);
         activeListeners.clear();
@@ -171,6 +290,8 @@ public class PortScanner {
         Future<?> future = activeListeners.remove(port);
         if (future != null) {
             future.cancel(true);
+            releasedPorts.add(port);
+            wakeUp();
             logger.info("Stopped MAVLink UDP listener on port {}", port);
         } else {
             logger.debug("No active listener found on port {}", port);
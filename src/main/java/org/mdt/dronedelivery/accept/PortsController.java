@@ -0,0 +1,98 @@
+package org.mdt.dronedelivery.accept;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// /ports: GET lists the scanned ports; POST {"add": [...], "remove": [...]} applies both lists as
+// one PortManager version. Entries are ports or inclusive "from-to" ranges.
+@RestController
+@RequestMapping("/ports")
+public class PortsController {
+
+    private final PortManager portManager;
+    private final PortScanner portScanner;
+
+    public PortsController(PortManager portManager, PortScanner portScanner) {
+        this.portManager = portManager;
+        this.portScanner = portScanner;
+    }
+
+    @GetMapping
+    public Map<String, Object> ports() {
+        List<Integer> ports = new ArrayList<>();
+        long version = portManager.forEachPort(ports::add);
+        Map<String, Object> body = status(version);
+        body.put("ports", ports);
+        return body;
+    }
+
+    @PostMapping
+    public Map<String, Object> update(@RequestBody PortsUpdate update) {
+        long version;
+        try {
+            // Bad entries and over-limit updates leave the port set untouched
+            version = portManager.update(expand(update.getAdd()), expand(update.getRemove()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return status(version);
+    }
+
+    private Map<String, Object> status(long version) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("version", version);
+        // Behind version until the scanner has woken and bound the change
+        body.put("appliedVersion", portScanner.getAppliedVersion());
+        body.put("count", portManager.size());
+        body.put("maxPorts", portManager.getMaxPorts());
+        return body;
+    }
+
+    private static List<Integer> expand(List<String> entries) {
+        List<Integer> ports = new ArrayList<>();
+        if (entries == null) {
+            return ports;
+        }
+        for (String entry : entries) {
+            String spec = entry.trim();
+            int dash = spec.indexOf('-', 1);
+            try {
+                if (dash < 0) {
+                    ports.add(Integer.parseInt(spec));
+                    continue;
+                }
+                int from = Integer.parseInt(spec.substring(0, dash).trim());
+                int to = Integer.parseInt(spec.substring(dash + 1).trim());
+                if (from > to || to - from >= 1 << 16) {
+                    throw new IllegalArgumentException("Invalid port range " + spec);
+                }
+                for (int port = from; port <= to; port++) {
+                    ports.add(port);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid port " + spec, e);
+            }
+        }
+        return ports;
+    }
+
+    @Getter
+    @Setter
+    public static final class PortsUpdate {
+
+        private List<String> add;
+        private List<String> remove;
+    }
+}
@@ -0,0 +1,222 @@
+package org.mdt.dronedelivery.accept;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.mdt.dronedelivery.link.LinkMonitor;
+import org.mdt.dronedelivery.logging.RateLimitedLogger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@Component
+@ConditionalOnProperty(name = "drone-delivery.ingest-mode", havingValue = "selector")
+public class SelectorIngestEngine implements PortListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SelectorIngestEngine.class);
+    private static final RateLimitedLogger errorLog = new RateLimitedLogger(logger, 10, TimeUnit.SECONDS);
+    private final EventLoop[] eventLoops;
+    private final int maxDatagramsPerWakeup;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private final LinkMonitor linkMonitor;
+    private final DatagramBufferPool datagramBufferPool;
+    private final FrameRouter frameRouter;
+
+    public SelectorIngestEngine(
+            @Value("${drone-delivery.selector.event-loops:1}") int eventLoopCount,
+            @Value("${drone-delivery.selector.max-datagrams-per-wakeup:64}") int maxDatagramsPerWakeup,
+            LinkMonitor linkMonitor,
+            DatagramBufferPool datagramBufferPool,
+            FrameRouter frameRouter) {
+        this.eventLoops = new EventLoop[Math.max(1, eventLoopCount)];
+        this.maxDatagramsPerWakeup = Math.max(1, maxDatagramsPerWakeup);
+        this.linkMonitor = linkMonitor;
+        this.datagramBufferPool = datagramBufferPool;
+        this.frameRouter = frameRouter;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new EventLoop(i);
+            eventLoops[i].thread.start();
+        }
+        logger.info("Selector ingest started with {} event loop(s)", eventLoops.length);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (EventLoop loop : eventLoops) {
+            if (loop != null) {
+                loop.thread.interrupt();
+                loop.selector.wakeup();
+            }
+        }
+    }
+
+    @Override
+    public Future<?> adopt(int port, DatagramChannel channel, ByteBuffer firstDatagram, InetSocketAddress sender,
+                           Consumer<Integer> onStopCallback) {
+        EventLoop loop = eventLoops[Math.floorMod(nextLoop.getAndIncrement(), eventLoops.length)];
+        PortBinding binding = new PortBinding(port, onStopCallback, loop);
+        loop.execute(() -> binding.adopt(channel, firstDatagram, sender));
+        return binding;
+    }
+
+    private final class EventLoop implements Runnable {
+
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer receiveBuffer = datagramBufferPool.acquire();
+
+        private EventLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "mavlink-selector-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        void execute(Runnable task) {
+            tasks.offer(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        try {
+                            task.run();
+                        } catch (RuntimeException e) {
+                            errorLog.error("task:" + thread.getName(), "Task failed on {}: {}",
+                                    thread.getName(), e.toString());
+                        }
+                    }
+                    selector.select();
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        if (key.isValid() && key.isReadable()) {
+                            PortBinding binding = (PortBinding) key.attachment();
+                            // One bad datagram or handler must not stop the other ports on this loop
+                            try {
+                                binding.drain(receiveBuffer);
+                            } catch (RuntimeException e) {
+                                errorLog.error("drain:" + binding.port, "Error draining UDP port {}: {}",
+                                        binding.port, e.toString());
+                            }
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException e) {
+                logger.error("Selector event loop {} failed: {}", thread.getName(), e.getMessage());
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    ((PortBinding) key.attachment()).close();
+                }
+                datagramBufferPool.release(receiveBuffer);
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    logger.error("Error closing selector: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private final class PortBinding extends CompletableFuture<Void> {
+
+        private final int port;
+        private final Consumer<Integer> onStopCallback;
+        private final EventLoop loop;
+        private final FrameRouter.PortSink sink;
+        private DatagramChannel channel;
+        private LinkMonitor.Link link;
+
+        private PortBinding(int port, Consumer<Integer> onStopCallback, EventLoop loop) {
+            this.port = port;
+            this.onStopCallback = onStopCallback;
+            this.loop = loop;
+            this.sink = frameRouter.forPort(port);
+        }
+
+        // The scanner's channel is already bound and non-blocking; only the selector changes
+        void adopt(DatagramChannel adopted, ByteBuffer firstDatagram, InetSocketAddress firstSender) {
+            channel = adopted;
+            if (isDone()) {
+                close();
+                return;
+            }
+            try {
+                channel.register(loop.selector, SelectionKey.OP_READ, this);
+                link = linkMonitor.port(port, () -> onStopCallback.accept(port));
+                logger.info("Listener started on port {} ({}, adopted from scanner)", port, loop.thread.getName());
+            } catch (IOException e) {
+                logger.error("Error registering UDP channel for port {}: {}", port, e.getMessage());
+                close();
+                onStopCallback.accept(port);
+                return;
+            }
+            sink.decode(firstDatagram, firstSender.getAddress());
+        }
+
+        void drain(ByteBuffer buffer) {
+            try {
+                buffer.clear();
+                // Once per wakeup, however many datagrams it drains
+                link.touch();
+                // Capped so one flooded port cannot starve the others; the selector is
+                // level-triggered, so whatever is left makes the key ready again
+                InetSocketAddress sender;
+                for (int i = 0; i < maxDatagramsPerWakeup
+                        && (sender = (InetSocketAddress) channel.receive(buffer)) != null; i++) {
+                    buffer.flip();
+                    sink.decode(buffer, sender.getAddress());
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                logger.error("IO error on UDP port {}: {}", port, e.getMessage());
+                close();
+                onStopCallback.accept(port);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            loop.execute(this::close);
+            return cancelled;
+        }
+
+        void close() {
+            complete(null);
+            if (link != null) {
+                link.close();
+            }
+            if (channel != null && channel.isOpen()) {
+                try {
+                    channel.close();
+                    logger.debug("Closed UDP channel for port {}", port);
+                } catch (IOException e) {
+                    logger.error("Error closing UDP channel for port {}: {}", port, e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -14,6 +14,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 public class UdpInputStream extends InputStream {
 
     private final DatagramSocket socket;
+    private final DatagramPacket packet;
     private final Queue<byte[]> packetQueue = new ConcurrentLinkedQueue<>();
     private byte[] buffer;
     private int position = 0;
@@ -29,12 +30,13 @@ public class UdpInputStream extends InputStream {
     public UdpInputStream(DatagramSocket socket) {
         this.socket = socket;
         this.buffer = new byte[4096]; // Default buffer size for socket-based reading
+        this.packet = new DatagramPacket(buffer, buffer.length); // Reused for every receive
     }
 
     // Constructor for pre-received data (NIO compatibility)
     public UdpInputStream(byte[] data, InetSocketAddress sender) {
         this.socket = null;
-        this.packetQueue.offer(data);
+        this.packet = null;
         this.buffer = data;
         this.length = data.length;
         this.senderAddress = sender.getAddress();
@@ -53,6 +55,28 @@ public class UdpInputStream extends InputStream {
 
     @Override
     public int read() throws IOException {
+        if (!fill()) {
+            return -1; // End of data for byte array mode
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    // Bulk path: copies what is left of the current datagram without a call per byte
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, length - position);
+        System.arraycopy(buffer, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    private boolean fill() throws IOException {
         while (position >= length && !packetQueue.isEmpty()) {
             buffer = packetQueue.poll();
             position = 0;
@@ -60,19 +84,18 @@ public class UdpInputStream extends InputStream {
         }
 
         if (position >= length) {
-            if (socket != null) {
-                // Blocking socket-based reading
-                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
-                socket.receive(packet);
-                length = packet.getLength();
-                position = 0;
-                senderAddress = packet.getAddress();
-                senderPort = packet.getPort();
-                return buffer[position++] & 0xFF;
+            if (socket == null) {
+                return false;
             }
-            return -1; // End of data for byte array mode
+            // Blocking socket-based reading
+            packet.setLength(buffer.length);
+            socket.receive(packet);
+            length = packet.getLength();
+            position = 0;
+            senderAddress = packet.getAddress();
+            senderPort = packet.getPort();
         }
-        return buffer[position++] & 0xFF;
+        return true;
     }
 
     @Override
@@ -0,0 +1,403 @@
+package org.mdt.dronedelivery.link;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.mdt.dronedelivery.send.TelemetryFrame;
+import org.mdt.dronedelivery.send.TelemetryWebSocketService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+// Liveness for every port and vehicle on one hashed timing wheel. A packet only copies the
+// current tick into its Link; the timer thread visits one wheel bucket per tick and moves links
+// whose silence crossed a stage threshold ACTIVE -> STALE -> LOST -> RELEASED; releasing a port
+// hands it back to PortScanner, releasing a vehicle frees its registry slot. Links that saw traffic since they were scheduled are
+// simply rescheduled, so the per-packet cost is O(1) and no socket needs a receive timeout.
+// Every transition is published to WebSocket clients as a retained link_state event; a link that
+// is released or closed by its owner gets a final "released" event and its retained state is dropped.
+// Closed links are reaped on the next tick, and one superseded by a newer link for the same key (a
+// port re-adopted in the meantime) ends silently so it cannot retire the newer link's state.
+@Component
+@Slf4j
+public class LinkMonitor {
+
+    private static final String KEY_PREFIX = "link:";
+
+    private final long tickMs;
+    private final Link[] wheel;
+    private final int wheelMask;
+    // Stage thresholds in ticks of silence: stale, lost, released
+    private final long[] portStages;
+    private final long[] vehicleStages;
+    private final Queue<Link> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Link> recovered = new ConcurrentLinkedQueue<>();
+    private final Queue<Link> closing = new ConcurrentLinkedQueue<>();
+    // Newest link per key
+    private final Map<String, Link> current = new ConcurrentHashMap<>();
+    private final TelemetryWebSocketService telemetryWebSocketService;
+    private final List<IntConsumer> portEndListeners = new CopyOnWriteArrayList<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Links per state, [scope][state]; written by the timer thread only
+    private final int[][] counts = new int[2][LinkState.values().length];
+    private final Counter transitions;
+    private final ScheduledExecutorService timer;
+    private volatile long tick;
+
+    public LinkMonitor(@Value("${drone-delivery.link.tick-ms:100}") long tickMs,
+                       @Value("${drone-delivery.link.wheel-size:512}") int wheelSize,
+                       @Value("${drone-delivery.link.port.stale-ms:3000}") long portStaleMs,
+                       @Value("${drone-delivery.link.port.lost-ms:10000}") long portLostMs,
+                       @Value("${drone-delivery.link.port.release-ms:${drone-delivery.listener-timeout-ms:30000}}") long portReleaseMs,
+                       @Value("${drone-delivery.link.vehicle.stale-ms:2000}") long vehicleStaleMs,
+                       @Value("${drone-delivery.link.vehicle.lost-ms:10000}") long vehicleLostMs,
+                       @Value("${drone-delivery.link.vehicle.release-ms:300000}") long vehicleReleaseMs,
+                       TelemetryWebSocketService telemetryWebSocketService,
+                       MeterRegistry meterRegistry) {
+        this.tickMs = Math.max(1, tickMs);
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.wheel = new Link[size];
+        this.wheelMask = size - 1;
+        this.portStages = stages(portStaleMs, portLostMs, portReleaseMs);
+        this.vehicleStages = stages(vehicleStaleMs, vehicleLostMs, vehicleReleaseMs);
+        this.telemetryWebSocketService = telemetryWebSocketService;
+        for (Scope scope : Scope.values()) {
+            for (LinkState state : LinkState.values()) {
+                Gauge.builder("link.state", counts, c -> c[scope.ordinal()][state.ordinal()])
+                        .description("Links currently in each liveness stage")
+                        .tag("scope", scope.wireName)
+                        .tag("state", state.wireName())
+                        .register(meterRegistry);
+            }
+        }
+        this.transitions = Counter.builder("link.state.transitions").register(meterRegistry);
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "link-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private long[] stages(long... thresholdsMs) {
+        long[] ticks = new long[thresholdsMs.length];
+        for (int i = 0; i < ticks.length; i++) {
+            long previous = i == 0 ? 0 : ticks[i - 1];
+            ticks[i] = Math.max(previous + 1, (thresholdsMs[i] + tickMs - 1) / tickMs);
+        }
+        return ticks;
+    }
+
+    @PostConstruct
+    public void start() {
+        timer.scheduleAtFixedRate(this::advance, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        log.info("Link monitor: {}ms ticks, {} buckets, port stages {}/{}/{} ticks, vehicle stages {}/{}/{} ticks",
+                tickMs, wheel.length, portStages[0], portStages[1], portStages[2],
+                vehicleStages[0], vehicleStages[1], vehicleStages[2]);
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.shutdownNow();
+    }
+
+    // onRelease runs on the timer thread once the port or vehicle has been silent for the release stage
+    public Link port(int port, Runnable onRelease) {
+        return register(new Link(this, Scope.PORT, "port:" + port, port, 0, 0, portStages, onRelease));
+    }
+
+    public Link vehicle(String key, int port, int systemId, int componentId, Runnable onRelease) {
+        return register(new Link(this, Scope.VEHICLE, key, port, systemId, componentId, vehicleStages, onRelease));
+    }
+
+    // Runs on the timer thread once a port link is released or dropped after its owner closed it
+    public void addPortEndListener(IntConsumer listener) {
+        portEndListeners.add(listener);
+    }
+
+    private Link register(Link link) {
+        current.put(link.key, link);
+        scheduled.offer(link);
+        return link;
+    }
+
+    // Timer thread: one bucket per tick
+    void advance() {
+        try {
+            long now = tick + 1;
+            tick = now;
+            // Before new links, so a port closed and re-adopted within one tick ends first
+            for (Link link; (link = closing.poll()) != null; ) {
+                reap(link, now);
+            }
+            for (Link link; (link = scheduled.poll()) != null; ) {
+                if (!link.closed) {
+                    counts[link.scope.ordinal()][LinkState.ACTIVE.ordinal()]++;
+                    link.counted = true;
+                    // Replaces whatever a previous link for the same key left retained
+                    publish(link, LinkState.ACTIVE, 0);
+                    schedule(link, now);
+                }
+            }
+            for (Link link; (link = recovered.poll()) != null; ) {
+                link.recoveryQueued = false;
+                if (!link.closed && link.state != LinkState.ACTIVE && link.counted) {
+                    unlink(link);
+                    transition(link, LinkState.ACTIVE, now);
+                    schedule(link, now);
+                }
+            }
+            int bucket = (int) now & wheelMask;
+            Link link = wheel[bucket];
+            while (link != null) {
+                Link next = link.next;
+                if (link.closed) {
+                    reap(link, now);
+                } else if (link.rounds > 0) {
+                    link.rounds--;
+                } else {
+                    unlink(link);
+                    expire(link, now);
+                }
+                link = next;
+            }
+        } catch (Exception e) {
+            log.error("Link monitor tick failed", e);
+        }
+    }
+
+    private void expire(Link link, long now) {
+        long idle = now - link.lastSeenTick;
+        int stage = link.state.ordinal();
+        LinkState reached = link.state;
+        while (stage < link.stages.length && idle >= link.stages[stage]) {
+            reached = LinkState.values()[++stage];
+        }
+        if (reached != link.state) {
+            transition(link, reached, now);
+        }
+        if (reached == LinkState.RELEASED) {
+            link.closed = true;
+            uncount(link);
+            try {
+                link.onRelease.run();
+            } catch (RuntimeException e) {
+                log.error("Releasing link {} failed", link.key, e);
+            }
+            if (current.remove(link.key, link)) {
+                ended(link);
+            }
+        } else {
+            schedule(link, now);
+        }
+    }
+
+    // Safe to repeat: the link is out of the wheel and the key map after the first call
+    private void reap(Link link, long now) {
+        unlink(link);
+        boolean published = link.counted;
+        uncount(link);
+        if (current.get(link.key) != link) {
+            return;
+        }
+        if (published) {
+            publish(link, LinkState.RELEASED, (now - link.lastSeenTick) * tickMs);
+        }
+        if (current.remove(link.key, link)) {
+            ended(link);
+        }
+    }
+
+    private void ended(Link link) {
+        if (link.scope != Scope.PORT) {
+            return;
+        }
+        for (IntConsumer listener : portEndListeners) {
+            try {
+                listener.accept(link.port);
+            } catch (RuntimeException e) {
+                log.error("Port end listener failed for {}", link.key, e);
+            }
+        }
+    }
+
+    // Into the bucket of the next stage deadline, counted from the last packet
+    private void schedule(Link link, long now) {
+        long deadline = link.lastSeenTick + link.stages[link.state.ordinal()];
+        long delay = Math.max(1, deadline - now);
+        int bucket = (int) (now + delay) & wheelMask;
+        link.rounds = (delay - 1) / wheel.length;
+        link.bucket = bucket;
+        link.prev = null;
+        link.next = wheel[bucket];
+        if (link.next != null) {
+            link.next.prev = link;
+        }
+        wheel[bucket] = link;
+    }
+
+    private void unlink(Link link) {
+        if (link.bucket < 0) {
+            return;
+        }
+        if (link.prev != null) {
+            link.prev.next = link.next;
+        } else {
+            wheel[link.bucket] = link.next;
+        }
+        if (link.next != null) {
+            link.next.prev = link.prev;
+        }
+        link.prev = null;
+        link.next = null;
+        link.bucket = -1;
+    }
+
+    private void uncount(Link link) {
+        if (link.counted) {
+            counts[link.scope.ordinal()][link.state.ordinal()]--;
+            link.counted = false;
+        }
+    }
+
+    private void transition(Link link, LinkState state, long now) {
+        int[] scopeCounts = counts[link.scope.ordinal()];
+        scopeCounts[link.state.ordinal()]--;
+        scopeCounts[state.ordinal()]++;
+        LinkState previous = link.state;
+        link.state = state;
+        transitions.increment();
+        long idleMs = (now - link.lastSeenTick) * tickMs;
+        if (state == LinkState.ACTIVE) {
+            log.info("Link {} active again", link.key);
+        } else {
+            log.info("Link {} {} after {}ms without traffic (was {})", link.key, state.wireName(), idleMs, previous.wireName());
+        }
+        publish(link, state, idleMs);
+    }
+
+    //   {"type":"link_state","scope":"port","key":"port:1500","port":1500,"state":"stale","idleMs":3000,"timestamp":...}
+    private void publish(Link link, LinkState state, long idleMs) {
+        if (state == LinkState.RELEASED && current.get(link.key) != link) {
+            // A newer link for the key owns the retained state
+            return;
+        }
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("type", "link_state");
+        event.put("scope", link.scope.wireName);
+        event.put("key", link.key);
+        event.put("port", link.port);
+        if (link.scope == Scope.VEHICLE) {
+            event.put("systemId", link.systemId);
+            event.put("componentId", link.componentId);
+        }
+        event.put("state", state.wireName());
+        event.put("idleMs", state == LinkState.ACTIVE ? 0 : idleMs);
+        event.put("timestamp", System.currentTimeMillis());
+        try {
+            TelemetryFrame frame = TelemetryFrame.event(KEY_PREFIX + link.key,
+                    link.port, link.systemId, new TextMessage(objectMapper.writeValueAsString(event)));
+            if (state == LinkState.RELEASED) {
+                telemetryWebSocketService.dropRetained(frame.getKey());
+                telemetryWebSocketService.broadcast(frame);
+            } else {
+                telemetryWebSocketService.publishRetained(frame);
+            }
+        } catch (JsonProcessingException e) {
+            log.error("Error encoding link state for {}", link.key, e);
+        }
+    }
+
+    private void recover(Link link) {
+        link.recoveryQueued = true;
+        recovered.offer(link);
+    }
+
+    private enum Scope {
+        PORT("port"),
+        VEHICLE("vehicle");
+
+        private final String wireName;
+
+        Scope(String wireName) {
+            this.wireName = wireName;
+        }
+    }
+
+    // Handle for one port or vehicle. touch() may be called from any receive thread; everything
+    // else about the link belongs to the timer thread.
+    public static final class Link {
+
+        private final LinkMonitor monitor;
+        private final Scope scope;
+        private final String key;
+        private final int port;
+        private final int systemId;
+        private final int componentId;
+        private final long[] stages;
+        private final Runnable onRelease;
+        private volatile long lastSeenTick;
+        private volatile LinkState state = LinkState.ACTIVE;
+        private volatile boolean closed;
+        private volatile boolean recoveryQueued;
+        // Wheel bookkeeping, timer thread only
+        private Link prev;
+        private Link next;
+        private int bucket = -1;
+        private long rounds;
+        private boolean counted;
+
+        private Link(LinkMonitor monitor, Scope scope, String key, int port, int systemId, int componentId,
+                     long[] stages, Runnable onRelease) {
+            this.monitor = monitor;
+            this.scope = scope;
+            this.key = key;
+            this.port = port;
+            this.systemId = systemId;
+            this.componentId = componentId;
+            this.stages = stages;
+            this.onRelease = onRelease;
+            this.lastSeenTick = monitor.tick;
+        }
+
+        // Per packet: two volatile reads, and a write at most once per tick
+        public void touch() {
+            long now = monitor.tick;
+            if (lastSeenTick != now) {
+                lastSeenTick = now;
+            }
+            if (state != LinkState.ACTIVE && !recoveryQueued && !closed) {
+                monitor.recover(this);
+            }
+        }
+
+        public LinkState getState() {
+            return state;
+        }
+
+        // The owner stopped on its own; the timer drops the link on its next tick
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            monitor.closing.offer(this);
+        }
+    }
+}
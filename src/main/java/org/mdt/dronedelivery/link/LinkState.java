@@ -0,0 +1,15 @@
+package org.mdt.dronedelivery.link;
+
+// Liveness stages in order; a link moves one way through them as it stays silent and straight
+// back to ACTIVE when traffic returns. RELEASED is final: a released port goes back to PortScanner
+// and a released vehicle gives up its registry slot.
+public enum LinkState {
+    ACTIVE,
+    STALE,
+    LOST,
+    RELEASED;
+
+    public String wireName() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,129 @@
+package org.mdt.dronedelivery.logging;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Replaces per-message INFO lines on the receive path. Receive threads only bump a per-port,
+// per-message-type counter; a background thread turns the counts into one summary line per active
+// port every summary-interval-ms. Full per-message tracing is opt-in per port (trace-ports, or
+// setTraced at runtime) and goes to the "mavlink.trace" logger.
+@Component
+@Slf4j
+public class IngestActivityLog {
+
+    private static final Logger TRACE = LoggerFactory.getLogger("mavlink.trace");
+    // Ids past this share the last counter; everything this service handles is below it
+    private static final int MAX_TYPED_ID = 1023;
+
+    private final long summaryIntervalMs;
+    private final Map<Integer, PortActivity> ports = new ConcurrentHashMap<>();
+    // One bit per UDP port
+    private final AtomicLongArray tracedPorts = new AtomicLongArray(1 << 10);
+    private final ScheduledExecutorService scheduler;
+
+    public IngestActivityLog(@Value("${drone-delivery.logging.summary-interval-ms:60000}") long summaryIntervalMs,
+                             @Value("${drone-delivery.logging.trace-ports:}") int[] tracePorts) {
+        this.summaryIntervalMs = summaryIntervalMs;
+        for (int port : tracePorts) {
+            setTraced(port, true);
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ingest-activity-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (summaryIntervalMs > 0) {
+            scheduler.scheduleAtFixedRate(this::summarize, summaryIntervalMs, summaryIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        summarize();
+    }
+
+    // Held by the port's receive loop so counting is one array increment
+    public PortActivity forPort(int port) {
+        return ports.computeIfAbsent(port, PortActivity::new);
+    }
+
+    public boolean isTraced(int port) {
+        return (tracedPorts.get((port & 0xFFFF) >>> 6) & 1L << port) != 0;
+    }
+
+    public void setTraced(int port, boolean traced) {
+        int index = (port & 0xFFFF) >>> 6;
+        long bit = 1L << port;
+        long word;
+        do {
+            word = tracedPorts.get(index);
+        } while (!tracedPorts.compareAndSet(index, word, traced ? word | bit : word & ~bit));
+        log.info("Per-message tracing {} for port {}", traced ? "enabled" : "disabled", port);
+    }
+
+    public void trace(int port, int messageId, Object payload, Object sender) {
+        TRACE.info("port={} from={} id={} {}", port, sender, messageId, payload);
+    }
+
+    void summarize() {
+        long seconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(summaryIntervalMs));
+        for (PortActivity activity : ports.values()) {
+            String line = activity.drain();
+            if (line != null) {
+                log.info("port {}: {} ({}s)", activity.port, line, seconds);
+            }
+        }
+    }
+
+    public static final class PortActivity {
+
+        private final int port;
+        private final AtomicLongArray counts = new AtomicLongArray(MAX_TYPED_ID + 2);
+        // Payload simple names, filled the first time a type is seen
+        private final String[] names = new String[MAX_TYPED_ID + 2];
+
+        private PortActivity(int port) {
+            this.port = port;
+        }
+
+        public void count(int messageId, Object payload) {
+            int index = Math.min(messageId, MAX_TYPED_ID + 1);
+            if (names[index] == null) {
+                names[index] = index > MAX_TYPED_ID ? "other" : payload.getClass().getSimpleName();
+            }
+            counts.incrementAndGet(index);
+        }
+
+        // "512 messages [GlobalPositionInt=300 Heartbeat=60 ...]", or null if the port was quiet
+        private String drain() {
+            StringBuilder types = new StringBuilder();
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                if (counts.get(i) == 0) {
+                    continue;
+                }
+                long count = counts.getAndSet(i, 0);
+                total += count;
+                types.append(types.isEmpty() ? "" : " ").append(names[i]).append('=').append(count);
+            }
+            return total == 0 ? null : total + " messages [" + types + "]";
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.mdt.dronedelivery.logging;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hot-path error logging: the first occurrence of a key is logged, repeats within the interval are
+// only counted, and the next one logged after it reports how many were suppressed. Keys should
+// be low-cardinality (a call site plus a port, say), never per-message text.
+public final class RateLimitedLogger {
+
+    private final Logger logger;
+    private final long intervalNanos;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    public RateLimitedLogger(Logger logger, long interval, TimeUnit unit) {
+        this.logger = logger;
+        this.intervalNanos = unit.toNanos(interval);
+    }
+
+    public void warn(String key, String format, Object... args) {
+        if (logger.isWarnEnabled()) {
+            long suppressed = admit(key);
+            if (suppressed >= 0) {
+                logger.warn(withSuppressed(format, suppressed), args);
+            }
+        }
+    }
+
+    public void error(String key, String format, Object... args) {
+        if (logger.isErrorEnabled()) {
+            long suppressed = admit(key);
+            if (suppressed >= 0) {
+                logger.error(withSuppressed(format, suppressed), args);
+            }
+        }
+    }
+
+    // Occurrences suppressed since the last logged one, or -1 if this one is suppressed too
+    private long admit(String key) {
+        Window window = windows.computeIfAbsent(key, k -> new Window());
+        long now = System.nanoTime();
+        long opened = window.openedNanos.get();
+        if (opened != 0 && now - opened < intervalNanos) {
+            window.suppressed.incrementAndGet();
+            return -1;
+        }
+        if (!window.openedNanos.compareAndSet(opened, now)) {
+            window.suppressed.incrementAndGet();
+            return -1;
+        }
+        return window.suppressed.getAndSet(0);
+    }
+
+    private static String withSuppressed(String format, long suppressed) {
+        return suppressed == 0 ? format : format + " (" + suppressed + " similar suppressed)";
+    }
+
+    private static final class Window {
+        private final AtomicLong openedNanos = new AtomicLong();
+        private final AtomicLong suppressed = new AtomicLong();
+    }
+}
@@ -0,0 +1,53 @@
+package org.mdt.dronedelivery.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// One latency timer per MAVLink message type for a pipeline stage, with a percentile histogram
+// (exported as *_bucket for Prometheus-style quantiles) bounded to the range telemetry latency
+// actually spans. Timers are created on first use and then found by array index, so recording
+// costs a lookup and the histogram update, no allocation. latencyTimer() builds the same
+// histogram for every other latency meter, from UDP receive to the WebSocket write.
+public final class LatencyTimers {
+
+    // Ids past this share one "other" timer; every message this service handles is below it
+    private static final int MAX_TYPED_ID = 1023;
+
+    private final MeterRegistry meterRegistry;
+    private final String name;
+    private final String stage;
+    private final AtomicReferenceArray<Timer> byMessageId = new AtomicReferenceArray<>(MAX_TYPED_ID + 2);
+
+    public LatencyTimers(MeterRegistry meterRegistry, String name, String stage) {
+        this.meterRegistry = meterRegistry;
+        this.name = name;
+        this.stage = stage;
+    }
+
+    public void record(int messageId, Object payload, long nanos) {
+        int index = Math.min(messageId, MAX_TYPED_ID + 1);
+        Timer timer = byMessageId.get(index);
+        if (timer == null) {
+            // Racing creators get the same meter back from the registry
+            String type = index > MAX_TYPED_ID ? "other" : payload.getClass().getSimpleName();
+            timer = latencyTimer(name, stage).tag("type", type).register(meterRegistry);
+            byMessageId.set(index, timer);
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static Timer.Builder latencyTimer(String name, String stage) {
+        return latencyTimer(name).tag("stage", stage);
+    }
+
+    public static Timer.Builder latencyTimer(String name) {
+        return Timer.builder(name)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,124 @@
+package org.mdt.dronedelivery.process;
+
+import lombok.Getter;
+import org.mdt.dronedelivery.link.LinkMonitor;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Everything the service knows about one vehicle (port, systemId, componentId), held in its
+// DroneStateRegistry slot. Written only by the pipeline lane that owns the vehicle; the broadcast
+// thread reads telemetry through its seqlock snapshot and the mission through the volatile reference.
+@Getter
+public final class DroneState {
+
+    private final int key;
+    private final int slot;
+    private final int port;
+    private final int systemId;
+    private final int componentId;
+    // "<port>" for system 1 component 1, the autopilot defaults, "<port>:<systemId>:<componentId>"
+    // otherwise; never depends on which vehicle of a port spoke first
+    private final String frameKey;
+    private final TelemetryData telemetry;
+    private volatile MissionSnapshot mission;
+    private volatile TelemetryData.HomeLocation homeLocation;
+    private MissionDownload missionDownload;
+    // Liveness handle, created with the slot; its release frees the slot
+    private LinkMonitor.Link link;
+    // Receive time of the oldest change not yet broadcast, 0 when none; end-to-end latency
+    // is measured from here. Lane and broadcaster may race on it, costing at most one sample.
+    private volatile long unpublishedSinceNanos;
+
+    // Registry column shared by every slot: lastLat at 2 * slot, lastLon at 2 * slot + 1
+    private final DoubleBuffer positions;
+
+    DroneState(int key, int slot, int port, int systemId, int componentId, DoubleBuffer positions) {
+        this.key = key;
+        this.slot = slot;
+        this.port = port;
+        this.systemId = systemId;
+        this.componentId = componentId;
+        this.frameKey = systemId == 1 && componentId == 1 ? String.valueOf(port) : port + ":" + systemId + ":" + componentId;
+        this.telemetry = new TelemetryData(port);
+        this.telemetry.setSystemId(systemId);
+        this.telemetry.setComponentId(componentId);
+        this.positions = positions;
+        clearLastPosition();
+    }
+
+    // One int per vehicle: 16-bit port, 8-bit system id, 8-bit component id
+    public static int vehicleKey(int port, int systemId, int componentId) {
+        return port << 16 | (systemId & 0xFF) << 8 | (componentId & 0xFF);
+    }
+
+    boolean hasLastPosition() {
+        return !Double.isNaN(positions.get(2 * slot));
+    }
+
+    double lastLat() {
+        return positions.get(2 * slot);
+    }
+
+    double lastLon() {
+        return positions.get(2 * slot + 1);
+    }
+
+    void setLastPosition(double lat, double lon) {
+        positions.put(2 * slot, lat);
+        positions.put(2 * slot + 1, lon);
+    }
+
+    void clearLastPosition() {
+        setLastPosition(Double.NaN, Double.NaN);
+    }
+
+    void stampReceived(long receivedNanos) {
+        if (unpublishedSinceNanos == 0) {
+            unpublishedSinceNanos = receivedNanos;
+        }
+    }
+
+    long takeUnpublishedSince() {
+        long since = unpublishedSinceNanos;
+        unpublishedSinceNanos = 0;
+        return since;
+    }
+
+    void setMission(MissionSnapshot mission) {
+        this.mission = mission;
+    }
+
+    void setHomeLocation(TelemetryData.HomeLocation homeLocation) {
+        this.homeLocation = homeLocation;
+    }
+
+    void setLink(LinkMonitor.Link link) {
+        this.link = link;
+    }
+
+    void setMissionDownload(MissionDownload missionDownload) {
+        this.missionDownload = missionDownload;
+    }
+
+    static final class MissionDownload {
+        final int expected;
+        final List<TelemetryData.Waypoint> items;
+        private int lastSeq = -1;
+
+        MissionDownload(int expected) {
+            this.expected = expected;
+            this.items = new ArrayList<>(expected);
+        }
+
+        // Retransmitted items are dropped
+        boolean accept(int seq) {
+            if (seq <= lastSeq) {
+                return false;
+            }
+            lastSeq = seq;
+            return true;
+        }
+    }
+}
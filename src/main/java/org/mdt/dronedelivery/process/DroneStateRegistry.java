@@ -0,0 +1,273 @@
+package org.mdt.dronedelivery.process;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.mdt.dronedelivery.link.LinkMonitor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// All per-vehicle state in one place. Vehicles get a dense slot on their first heartbeat; an
+// int-keyed open-addressing table maps DroneState.vehicleKey to the slot without boxing or
+// allocation, hot numeric columns are flat arrays indexed by slot (optionally off-heap), and dirty
+// flags are bitsets the broadcast thread drains each tick. Capacity is fixed, so lookups never race
+// with a resize. Each vehicle gets a LinkMonitor link with its slot and gives the slot back when
+// the link is released; size() is the high-water mark and state(slot) is null for a free slot.
+@Component
+@Slf4j
+public class DroneStateRegistry {
+
+    private static final int EMPTY = 0;
+    private static final int[] NO_SLOTS = {};
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicIntegerArray keys;
+    private final int[] slots;
+    private final AtomicReferenceArray<DroneState> states;
+    private final DoubleBuffer positions;
+    private final AtomicLongArray dirty;
+    private final AtomicLongArray missionDirty;
+    // Changed since the last StateCheckpointService pass
+    private final AtomicLongArray checkpointDirty;
+    // Released slots, reused before the high-water mark grows; guarded by this
+    private int[] freeSlots = NO_SLOTS;
+    private int freeCount;
+    private volatile int size;
+    private volatile int vehicles;
+    private boolean fullLogged;
+    private final LinkMonitor linkMonitor;
+    private final List<Consumer<DroneState>> releaseListeners = new CopyOnWriteArrayList<>();
+    private final Counter rejected;
+
+    public DroneStateRegistry(@Value("${drone-delivery.registry.max-drones:4096}") int maxDrones,
+                              @Value("${drone-delivery.registry.direct:false}") boolean direct,
+                              LinkMonitor linkMonitor,
+                              MeterRegistry meterRegistry) {
+        this.linkMonitor = linkMonitor;
+        this.capacity = maxDrones;
+        int tableSize = Integer.highestOneBit(Math.max(2, maxDrones) * 2 - 1) << 1;
+        this.mask = tableSize - 1;
+        this.keys = new AtomicIntegerArray(tableSize);
+        this.slots = new int[tableSize];
+        this.states = new AtomicReferenceArray<>(maxDrones);
+        this.positions = direct
+                ? ByteBuffer.allocateDirect(maxDrones * 2 * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer()
+                : DoubleBuffer.allocate(maxDrones * 2);
+        this.dirty = new AtomicLongArray((maxDrones + 63) >>> 6);
+        this.missionDirty = new AtomicLongArray((maxDrones + 63) >>> 6);
+        this.checkpointDirty = new AtomicLongArray((maxDrones + 63) >>> 6);
+        Gauge.builder("drone.registry.vehicles", this, r -> r.vehicles)
+                .description("Vehicles holding a registry slot")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("drone.registry.rejected")
+                .description("Vehicle heartbeats turned away because every registry slot was taken")
+                .register(meterRegistry);
+        log.info("Drone state registry: {} slots ({})", maxDrones, direct ? "off-heap columns" : "heap columns");
+    }
+
+    // null once every slot is taken
+    public DroneState acquire(int port, int systemId, int componentId) {
+        int key = DroneState.vehicleKey(port, systemId, componentId);
+        DroneState state = get(key);
+        if (state == null) {
+            state = create(key, port, systemId, componentId);
+            if (state == null) {
+                rejected.increment();
+            }
+        }
+        return state;
+    }
+
+    // May miss a vehicle while release() shifts table entries; create() looks again under the lock
+    public DroneState get(int key) {
+        for (int i = hash(key); ; i = (i + 1) & mask) {
+            int k = keys.get(i);
+            if (k == key) {
+                DroneState state = states.get(slots[i]);
+                return state != null && state.getKey() == key ? state : null;
+            }
+            if (k == EMPTY) {
+                return null;
+            }
+        }
+    }
+
+    private synchronized DroneState create(int key, int port, int systemId, int componentId) {
+        int i = hash(key);
+        for (int k; (k = keys.get(i)) != EMPTY; i = (i + 1) & mask) {
+            if (k == key) {
+                return states.get(slots[i]);
+            }
+        }
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : size;
+        if (slot == capacity) {
+            if (!fullLogged) {
+                log.error("Drone state registry full ({} drones); ignoring new drones", capacity);
+                fullLogged = true;
+            }
+            return null;
+        }
+        log.info("New vehicle on port {}: system {} component {}", port, systemId, componentId);
+        DroneState state = new DroneState(key, slot, port, systemId, componentId, positions);
+        state.setLink(linkMonitor.vehicle(state.getFrameKey(), port, systemId, componentId, () -> release(state)));
+        states.set(slot, state);
+        slots[i] = slot;
+        // Publishing the key makes slots[i] and the state visible to lock-free readers
+        keys.set(i, key);
+        size = Math.max(size, slot + 1);
+        vehicles++;
+        return state;
+    }
+
+    // Runs on the releasing thread after the slot is free
+    public void addReleaseListener(Consumer<DroneState> listener) {
+        releaseListeners.add(listener);
+    }
+
+    // Frees the vehicle's slot. A lane still holding the state may finish its current message;
+    // the next one acquires a fresh state.
+    public void release(DroneState state) {
+        if (!remove(state)) {
+            return;
+        }
+        for (Consumer<DroneState> listener : releaseListeners) {
+            try {
+                listener.accept(state);
+            } catch (RuntimeException e) {
+                log.error("Release listener failed for vehicle {}", state.getFrameKey(), e);
+            }
+        }
+    }
+
+    private synchronized boolean remove(DroneState state) {
+        int i = hash(state.getKey());
+        for (int k; (k = keys.get(i)) != state.getKey(); i = (i + 1) & mask) {
+            if (k == EMPTY) {
+                return false;
+            }
+        }
+        if (states.get(slots[i]) != state) {
+            return false;
+        }
+        // Backward-shift delete keeps every probe chain free of holes without tombstones
+        for (int j = (i + 1) & mask; ; j = (j + 1) & mask) {
+            int k = keys.get(j);
+            if (k == EMPTY) {
+                break;
+            }
+            int home = hash(k);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                slots[i] = slots[j];
+                keys.set(i, k);
+                i = j;
+            }
+        }
+        keys.set(i, EMPTY);
+        int slot = state.getSlot();
+        states.set(slot, null);
+        clearBit(dirty, slot);
+        clearBit(missionDirty, slot);
+        // The checkpoint notices the empty slot and drops the vehicle's record
+        setBit(checkpointDirty, slot);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeCount * 2));
+        }
+        freeSlots[freeCount++] = slot;
+        vehicles--;
+        fullLogged = false;
+        log.info("Released vehicle on port {}: system {} component {}",
+                state.getPort(), state.getSystemId(), state.getComponentId());
+        return true;
+    }
+
+    // Slots ever handed out; iterate up to this and skip free (null) slots
+    public int size() {
+        return size;
+    }
+
+    public DroneState state(int slot) {
+        return states.get(slot);
+    }
+
+    public void markDirty(DroneState state) {
+        setBit(dirty, state.getSlot());
+        setBit(checkpointDirty, state.getSlot());
+    }
+
+    public void markMissionDirty(DroneState state) {
+        setBit(missionDirty, state.getSlot());
+        setBit(checkpointDirty, state.getSlot());
+    }
+
+    public void drainCheckpointDirty(IntConsumer slotConsumer) {
+        drain(checkpointDirty, slotConsumer);
+    }
+
+    public void drainDirty(IntConsumer slotConsumer) {
+        drain(dirty, slotConsumer);
+    }
+
+    public void drainMissionDirty(IntConsumer slotConsumer) {
+        drain(missionDirty, slotConsumer);
+    }
+
+    public void clearDirty() {
+        for (int w = 0; w < dirty.length(); w++) {
+            dirty.set(w, 0);
+        }
+    }
+
+    private static void setBit(AtomicLongArray bits, int slot) {
+        int word = slot >>> 6;
+        long bit = 1L << slot;
+        long current;
+        while (((current = bits.get(word)) & bit) == 0) {
+            if (bits.compareAndSet(word, current, current | bit)) {
+                return;
+            }
+        }
+    }
+
+    private static void clearBit(AtomicLongArray bits, int slot) {
+        int word = slot >>> 6;
+        long bit = 1L << slot;
+        long current;
+        while (((current = bits.get(word)) & bit) != 0) {
+            if (bits.compareAndSet(word, current, current & ~bit)) {
+                return;
+            }
+        }
+    }
+
+    private static void drain(AtomicLongArray bits, IntConsumer slotConsumer) {
+        for (int w = 0; w < bits.length(); w++) {
+            if (bits.get(w) == 0) {
+                continue;
+            }
+            long word = bits.getAndSet(w, 0);
+            while (word != 0) {
+                slotConsumer.accept((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    private int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
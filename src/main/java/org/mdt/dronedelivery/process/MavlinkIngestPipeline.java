@@ -0,0 +1,234 @@
+package org.mdt.dronedelivery.process;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.mdt.dronedelivery.metrics.LatencyTimers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Stage 2 of ingest: receive threads decode (stage 1) and submit here; each message is routed by
+// (port, systemId) to one of a fixed set of lanes, so every vehicle's state has exactly one writer
+// and a burst from one vehicle only queues behind its own lane. Stage 3 is
+// TelemetryBroadcastScheduler, which publishes from the registry on its own thread.
+@Component
+// Restored accumulators must be in place before the first message can touch a vehicle
+@DependsOn("stateCheckpointService")
+@Slf4j
+public class MavlinkIngestPipeline {
+
+    private final MavlinkMessageHandler mavlinkMessageHandler;
+    private final Lane[] lanes;
+    private final Counter droppedMessages;
+    private final boolean latencyEnabled;
+    private final LatencyTimers queueLatency;
+    private final LatencyTimers handlerLatency;
+
+    public MavlinkIngestPipeline(MavlinkMessageHandler mavlinkMessageHandler,
+                                 @Value("${drone-delivery.pipeline.lanes:0}") int laneCount,
+                                 @Value("${drone-delivery.pipeline.ring-size:4096}") int ringSize,
+                                 @Value("${drone-delivery.metrics.latency:true}") boolean latencyEnabled,
+                                 MeterRegistry meterRegistry) {
+        this.mavlinkMessageHandler = mavlinkMessageHandler;
+        this.latencyEnabled = latencyEnabled;
+        this.queueLatency = new LatencyTimers(meterRegistry, "mavlink.ingest.latency", "queue");
+        this.handlerLatency = new LatencyTimers(meterRegistry, "mavlink.ingest.latency", "handler");
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.lanes = new Lane[count];
+        for (int i = 0; i < count; i++) {
+            Lane lane = new Lane(i, Integer.highestOneBit(Math.max(2, ringSize - 1)) << 1);
+            lanes[i] = lane;
+            String tag = String.valueOf(i);
+            Gauge.builder("mavlink.pipeline.queue.depth", lane, Lane::depth)
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            Gauge.builder("mavlink.pipeline.lane.utilization", lane, Lane::sampleUtilization)
+                    .description("Fraction of time the lane spent handling messages since the last sample")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+        }
+        this.droppedMessages = Counter.builder("mavlink.pipeline.dropped")
+                .description("Messages dropped because their lane's ring was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Lane lane : lanes) {
+            lane.thread.start();
+        }
+        log.info("MAVLink pipeline started with {} lane(s) of {} slots", lanes.length, lanes[0].capacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.running = false;
+            LockSupport.unpark(lane.thread);
+        }
+    }
+
+    // Called from receive threads; never blocks. A full ring drops the message rather than
+    // stalling the socket, which would only move the loss into the kernel buffer.
+    // receivedNanos is the System.nanoTime() the datagram was read at, 0 when not measured.
+    public void submit(Object payload, int messageId, int systemId, int componentId,
+                       int port, InetAddress sender, long receivedNanos) {
+        int hash = (port * 31 + systemId) * 0x9E3779B9;
+        Lane lane = lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)];
+        if (!lane.offer(payload, messageId, systemId, componentId, port, sender, receivedNanos)) {
+            droppedMessages.increment();
+        }
+    }
+
+    // Decoders skip parsing frames no payload handler is registered for
+    public boolean accepts(int messageId) {
+        return mavlinkMessageHandler.handles(messageId);
+    }
+
+    public boolean isLatencyEnabled() {
+        return latencyEnabled;
+    }
+
+    private static final class Slot {
+        private Object payload;
+        private int messageId;
+        private int systemId;
+        private int componentId;
+        private int port;
+        private InetAddress sender;
+        private long receivedNanos;
+        private long submittedNanos;
+    }
+
+    // Bounded multi-producer single-consumer ring (Vyukov): each slot's sequence says whether it
+    // is free for the producer at that position or published for the consumer.
+    private final class Lane implements Runnable {
+
+        private final int capacity;
+        private final int mask;
+        private final Slot[] slots;
+        private final AtomicLongArray sequences;
+        private final AtomicLong tail = new AtomicLong();
+        private final Thread thread;
+        private volatile long head;
+        private volatile boolean parked;
+        private volatile boolean running = true;
+        private volatile long busyNanos;
+        private long sampledBusyNanos;
+        private long sampledAtNanos = System.nanoTime();
+
+        private Lane(int index, int capacity) {
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            this.slots = new Slot[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                slots[i] = new Slot();
+                sequences.set(i, i);
+            }
+            this.thread = new Thread(this, "mavlink-lane-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        boolean offer(Object payload, int messageId, int systemId, int componentId,
+                      int port, InetAddress sender, long receivedNanos) {
+            long position = tail.get();
+            while (true) {
+                int index = (int) position & mask;
+                long difference = sequences.get(index) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        Slot slot = slots[index];
+                        slot.payload = payload;
+                        slot.messageId = messageId;
+                        slot.systemId = systemId;
+                        slot.componentId = componentId;
+                        slot.port = port;
+                        slot.sender = sender;
+                        slot.receivedNanos = receivedNanos;
+                        slot.submittedNanos = latencyEnabled ? System.nanoTime() : 0;
+                        sequences.set(index, position + 1);
+                        if (parked) {
+                            LockSupport.unpark(thread);
+                        }
+                        return true;
+                    }
+                    position = tail.get();
+                } else if (difference < 0) {
+                    return false;
+                } else {
+                    position = tail.get();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            long position = head;
+            int idle = 0;
+            while (running) {
+                int index = (int) position & mask;
+                if (sequences.get(index) != position + 1) {
+                    if (++idle < 100) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    parked = true;
+                    if (sequences.get(index) != position + 1 && running) {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    }
+                    parked = false;
+                    continue;
+                }
+                idle = 0;
+                Slot slot = slots[index];
+                Object payload = slot.payload;
+                int messageId = slot.messageId;
+                int systemId = slot.systemId;
+                int componentId = slot.componentId;
+                int port = slot.port;
+                InetAddress sender = slot.sender;
+                long receivedNanos = slot.receivedNanos;
+                long submittedNanos = slot.submittedNanos;
+                slot.payload = null;
+                slot.sender = null;
+                sequences.set(index, position + capacity);
+                head = ++position;
+
+                long started = System.nanoTime();
+                mavlinkMessageHandler.handleMessage(payload, messageId, systemId, componentId, port, sender, receivedNanos);
+                long finished = System.nanoTime();
+                busyNanos += finished - started;
+                if (submittedNanos != 0) {
+                    queueLatency.record(messageId, payload, started - submittedNanos);
+                    handlerLatency.record(messageId, payload, finished - started);
+                }
+            }
+        }
+
+        double depth() {
+            return tail.get() - head;
+        }
+
+        // Read by the metrics thread only
+        synchronized double sampleUtilization() {
+            long now = System.nanoTime();
+            long busy = busyNanos;
+            long elapsed = now - sampledAtNanos;
+            double utilization = elapsed > 0 ? (double) (busy - sampledBusyNanos) / elapsed : 0.0;
+            sampledAtNanos = now;
+            sampledBusyNanos = busy;
+            return Math.min(1.0, utilization);
+        }
+    }
+}
@@ -1,102 +1,93 @@
 package org.mdt.dronedelivery.process;
 
-import io.dronefleet.mavlink.MavlinkMessage;
-import io.dronefleet.mavlink.ardupilotmega.Wind;
-import io.dronefleet.mavlink.common.*;
+import io.dronefleet.mavlink.minimal.Heartbeat;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.mdt.dronedelivery.send.TelemetryWebSocketService;
+import org.mdt.dronedelivery.logging.RateLimitedLogger;
+import org.mdt.dronedelivery.process.handler.MavlinkPayloadHandler;
 import org.springframework.stereotype.Component;
 
 import java.net.InetAddress;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Getter
 @Component
 @Slf4j
 public class MavlinkMessageHandler {
 
-    private final Map<Integer, TelemetryData> telemetryDataMap = new ConcurrentHashMap<>();
-    private final TelemetryWebSocketService telemetryWebSocketService;
-    private final TelemetryUpdateService telemetryUpdateService;
+    private final DroneStateRegistry droneStateRegistry;
+    // Indexed by MAVLink message id; null where no MavlinkPayloadHandler bean is registered
+    private final MavlinkPayloadHandler<?>[] payloadHandlers;
+    private final RateLimitedLogger errorLog = new RateLimitedLogger(log, 10, TimeUnit.SECONDS);
+
+    public MavlinkMessageHandler(DroneStateRegistry droneStateRegistry,
+                                 List<MavlinkPayloadHandler<?>> payloadHandlers) {
+        this.droneStateRegistry = droneStateRegistry;
+        int maxId = payloadHandlers.stream().mapToInt(MavlinkPayloadHandler::messageId).max().orElse(0);
+        this.payloadHandlers = new MavlinkPayloadHandler<?>[maxId + 1];
+        for (MavlinkPayloadHandler<?> handler : payloadHandlers) {
+            int id = handler.messageId();
+            if (this.payloadHandlers[id] != null) {
+                throw new IllegalStateException("Two handlers for MAVLink message " + id + ": "
+                        + this.payloadHandlers[id].getClass().getSimpleName() + " and " + handler.getClass().getSimpleName());
+            }
+            this.payloadHandlers[id] = handler;
+        }
+        log.info("Handling {} MAVLink message types", payloadHandlers.size());
+    }
 
-    public MavlinkMessageHandler(TelemetryWebSocketService telemetryWebSocketService,
-                                 TelemetryUpdateService telemetryUpdateService) {
-        this.telemetryWebSocketService = telemetryWebSocketService;
-        this.telemetryUpdateService = telemetryUpdateService;
+    public boolean handles(int messageId) {
+        return messageId < payloadHandlers.length && payloadHandlers[messageId] != null;
     }
 
-    public void handleMessage(MavlinkMessage<?> message,
+    @SuppressWarnings("unchecked")
+    public void handleMessage(Object payload,
+                              int messageId,
+                              int systemId,
+                              int componentId,
                               int port,
-                              InetAddress senderAddress) {
-        try {
-            TelemetryData telemetryData = telemetryDataMap.computeIfAbsent(port, TelemetryData::new);
-            telemetryData.setGcsIp(senderAddress.getHostAddress());
-            telemetryData.setSystemId(message.getOriginSystemId());
-
-            Object payload = message.getPayload();
-
-            if (payload instanceof GlobalPositionInt pos) {
-                telemetryUpdateService.applyGlobalPosition(telemetryData, pos, port);
-
-            } else if (payload instanceof SysStatus sysStatus) {
-                telemetryUpdateService.applySysStatus(telemetryData, sysStatus);
-
-            } else if (payload instanceof VfrHud vfrHud) {
-                telemetryUpdateService.applyVfrHud(telemetryData, vfrHud);
-
-            } else if (payload instanceof MissionCount missionCount) {
-                telemetryUpdateService.onMissionCount(port, missionCount);
-
-            } else if (payload instanceof MissionItemInt missionItemInt) {
-                telemetryUpdateService.onMissionItemInt(port, missionItemInt);
-
-            } else if (payload instanceof Wind wind) {
-                telemetryUpdateService.applyWind(telemetryData, wind);
-
-            } else if (payload instanceof GpsRawInt gpsRawInt) {
-                telemetryUpdateService.applyGpsRaw(telemetryData, gpsRawInt);
-
-            } else if (payload instanceof Attitude attitude) {
-                telemetryUpdateService.applyAttitude(telemetryData, attitude);
-
-            } else if (payload instanceof ServoOutputRaw servo) {
-                telemetryUpdateService.applyServoOutputs(telemetryData, servo);
-            }
-
-            // Push updated telemetry for all ports
-            pushTelemetryWebSocketAllPorts();
-
-        } catch (Exception e) {
-            log.error("Error handling MAVLink message on port {}: {}", port, e.getMessage(), e);
+                              InetAddress senderAddress,
+                              long receivedNanos) {
+        if (!handles(messageId)) {
+            return;
         }
-    }
-
-    private void pushTelemetryWebSocketAllPorts() {
+        MavlinkPayloadHandler<Object> handler = (MavlinkPayloadHandler<Object>) payloadHandlers[messageId];
         try {
-            Map<String, Map<String, Object>> telemetryDataAllPorts = new HashMap<>();
-            for (Map.Entry<Integer, TelemetryData> entry : telemetryDataMap.entrySet()) {
-                int port = entry.getKey();
-                TelemetryData data = entry.getValue();
-
-                telemetryDataAllPorts.put(
-                        String.valueOf(port),
-                        TelemetryPayloadMapper.toMap(
-                                data,
-                                telemetryUpdateService.getWaypoints(port),
-                                telemetryUpdateService.getHomeLocation(port)
-                        )
-                );
+            // A relay can multiplex several vehicles, or a vehicle and its gimbal, onto one port;
+            // only a vehicle's heartbeat claims a slot, so peripherals and ground stations never do
+            DroneState state = droneStateRegistry.get(DroneState.vehicleKey(port, systemId, componentId));
+            if (state == null) {
+                if (!(payload instanceof Heartbeat heartbeat)
+                        || !TelemetryUpdateService.isVehicle(systemId, heartbeat)) {
+                    return;
+                }
+                state = droneStateRegistry.acquire(port, systemId, componentId);
+                if (state == null) {
+                    return;
+                }
+            }
+            state.getLink().touch();
+            // Only the vehicle's MavlinkIngestPipeline lane writes, so no lock is needed around the seqlock
+            TelemetryData telemetryData = state.getTelemetry();
+            boolean changed;
+            telemetryData.beginWrite();
+            try {
+                telemetryData.setGcsIp(senderAddress.getHostAddress());
+                changed = handler.handle(state, payload);
+            } finally {
+                telemetryData.endWrite();
             }
 
-            telemetryWebSocketService.sendTelemetryData(
-                    Map.of("telemetry_data", telemetryDataAllPorts)
-            );
+            // Picked up by the next broadcast tick (TelemetryBroadcastScheduler)
+            if (changed) {
+                state.stampReceived(receivedNanos);
+                droneStateRegistry.markDirty(state);
+            }
 
         } catch (Exception e) {
-            log.error("Error sending telemetry via WebSocket", e);
+            errorLog.error("handle:" + messageId, "Error handling MAVLink message {} on port {}: {}",
+                    messageId, port, e.getMessage(), e);
         }
     }
 }
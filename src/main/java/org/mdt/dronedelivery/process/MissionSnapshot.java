@@ -0,0 +1,21 @@
+package org.mdt.dronedelivery.process;
+
+import lombok.Getter;
+
+import java.util.List;
+
+// A completed mission download for one port. Immutable; replaced with version + 1 whenever a new
+// download finishes, so frames only need to carry the version.
+@Getter
+public final class MissionSnapshot {
+
+    private final long version;
+    private final List<TelemetryData.Waypoint> waypoints;
+    private final TelemetryData.HomeLocation homeLocation;
+
+    MissionSnapshot(long version, List<TelemetryData.Waypoint> waypoints, TelemetryData.HomeLocation homeLocation) {
+        this.version = version;
+        this.waypoints = List.copyOf(waypoints);
+        this.homeLocation = homeLocation;
+    }
+}
@@ -0,0 +1,297 @@
+package org.mdt.dronedelivery.process;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Periodically saves the accumulators a restart would otherwise lose (odometry, air/flight/throttle
+// timers, home location, mission) and restores them before ingest starts.
+//
+//   u32 magic "DCKP" | u16 version | u16 reserved | u64 written millis | u32 vehicle count
+//   per vehicle: u32 record length | record (see writeRecord)
+//   u32 CRC32 of everything before it
+//
+// Only vehicles that changed since the last pass are re-encoded; the file is rewritten to a
+// temporary sibling and atomically moved into place, so a crash mid-write keeps the old one.
+// A checkpoint older than checkpoint.max-age-ms describes flights that have long ended and is
+// not restored. Off unless checkpoint.enabled is set.
+@Component
+@Slf4j
+public class StateCheckpointService {
+
+    private static final int MAGIC = 0x44434B50;
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 20;
+
+    private final DroneStateRegistry droneStateRegistry;
+    private final boolean enabled;
+    private final Path file;
+    private final long intervalMs;
+    private final long maxAgeMs;
+    private final Timer restoreTimer;
+    private final ScheduledExecutorService scheduler;
+    // Last encoded record per registry slot, reused until the vehicle changes again
+    private final byte[][] records;
+    private final TelemetryData snapshot = new TelemetryData();
+    private ByteBuffer scratch = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+
+    public StateCheckpointService(DroneStateRegistry droneStateRegistry,
+                                  @Value("${drone-delivery.checkpoint.enabled:false}") boolean enabled,
+                                  @Value("${drone-delivery.checkpoint.file:state/checkpoint.bin}") String file,
+                                  @Value("${drone-delivery.checkpoint.interval-ms:5000}") long intervalMs,
+                                  @Value("${drone-delivery.checkpoint.max-age-ms:300000}") long maxAgeMs,
+                                  @Value("${drone-delivery.registry.max-drones:4096}") int maxDrones,
+                                  MeterRegistry meterRegistry) {
+        this.droneStateRegistry = droneStateRegistry;
+        this.enabled = enabled;
+        this.file = Path.of(file);
+        this.intervalMs = intervalMs;
+        this.maxAgeMs = maxAgeMs;
+        this.records = new byte[maxDrones][];
+        this.restoreTimer = Timer.builder("checkpoint.restore.time")
+                .description("Time to load the state checkpoint at startup")
+                .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "state-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        restore();
+        scheduler.scheduleWithFixedDelay(this::checkpoint, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        checkpoint();
+    }
+
+    synchronized void checkpoint() {
+        boolean[] changed = {false};
+        droneStateRegistry.drainCheckpointDirty(slot -> {
+            DroneState state = droneStateRegistry.state(slot);
+            // A released vehicle leaves the checkpoint
+            records[slot] = state == null ? null : encode(state);
+            changed[0] = true;
+        });
+        if (!changed[0]) {
+            return;
+        }
+        try {
+            write();
+        } catch (IOException e) {
+            log.error("State checkpoint to {} failed: {}", file, e.getMessage());
+        }
+    }
+
+    private void write() throws IOException {
+        int count = 0;
+        int length = HEADER_LENGTH + Integer.BYTES;
+        for (int slot = 0, size = droneStateRegistry.size(); slot < size; slot++) {
+            if (records[slot] != null) {
+                count++;
+                length += Integer.BYTES + records[slot].length;
+            }
+        }
+        ByteBuffer out = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0)
+                .putLong(System.currentTimeMillis()).putInt(count);
+        for (int slot = 0, size = droneStateRegistry.size(); slot < size; slot++) {
+            if (records[slot] != null) {
+                out.putInt(records[slot].length).put(records[slot]);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), 0, out.position());
+        out.putInt((int) crc.getValue());
+        out.flip();
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = parent.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // key | port u16 | systemId u8 | componentId u8 | distTraveled f64 | timeInAir u64 |
+    // flags u8 (airborne, flying, throttleActive) | startTime | flightStartTime | autoTime u32 |
+    // throttleStartTime | totalThrottleTime | home present u8 [lat f64 lon f64] |
+    // mission version u64 | waypoint count u16 | per waypoint: seq u16 lat lon alt f64
+    private byte[] encode(DroneState state) {
+        TelemetryData data = state.getTelemetry().snapshot(snapshot);
+        TelemetryData.HomeLocation home = state.getHomeLocation();
+        MissionSnapshot mission = state.getMission();
+        List<TelemetryData.Waypoint> waypoints = mission == null ? List.of() : mission.getWaypoints();
+        int waypointCount = Math.min(waypoints.size(), 0xFFFF);
+        int length = 96 + waypointCount * 26;
+        if (scratch.capacity() < length) {
+            scratch = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        ByteBuffer out = scratch.clear();
+        out.putInt(state.getKey());
+        out.putShort((short) state.getPort());
+        out.put((byte) state.getSystemId());
+        out.put((byte) state.getComponentId());
+        out.putDouble(data.getDistTraveled());
+        out.putLong(data.getTimeInAir());
+        out.put((byte) ((data.isAirborne() ? 1 : 0) | (data.isFlying() ? 2 : 0) | (data.isThrottleActive() ? 4 : 0)));
+        out.putLong(data.getStartTime());
+        out.putLong(data.getFlightStartTime());
+        out.putInt(data.getAutoTime());
+        out.putLong(data.getThrottleStartTime());
+        out.putLong(data.getTotalThrottleTime());
+        out.put((byte) (home != null ? 1 : 0));
+        if (home != null) {
+            out.putDouble(home.getLat());
+            out.putDouble(home.getLon());
+        }
+        out.putLong(mission == null ? 0 : mission.getVersion());
+        out.putShort((short) waypointCount);
+        for (int i = 0; i < waypointCount; i++) {
+            TelemetryData.Waypoint wp = waypoints.get(i);
+            out.putShort((short) wp.getSeq());
+            out.putDouble(wp.getLat());
+            out.putDouble(wp.getLon());
+            out.putDouble(wp.getAlt());
+        }
+        byte[] record = new byte[out.position()];
+        out.flip().get(record);
+        return record;
+    }
+
+    private void restore() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+            if (in.remaining() < HEADER_LENGTH + Integer.BYTES || in.getInt(0) != MAGIC
+                    || (in.getShort(4) & 0xFFFF) != VERSION) {
+                log.warn("Ignoring state checkpoint {}: unknown format", file);
+                return;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(in.array(), 0, in.limit() - Integer.BYTES);
+            if ((int) crc.getValue() != in.getInt(in.limit() - Integer.BYTES)) {
+                log.warn("Ignoring state checkpoint {}: checksum mismatch", file);
+                return;
+            }
+            in.position(8);
+            long writtenMillis = in.getLong();
+            long ageMs = System.currentTimeMillis() - writtenMillis;
+            if (ageMs > maxAgeMs) {
+                log.info("Ignoring state checkpoint {}: written {} s ago, limit {} s",
+                        file, TimeUnit.MILLISECONDS.toSeconds(ageMs), TimeUnit.MILLISECONDS.toSeconds(maxAgeMs));
+                return;
+            }
+            int count = in.getInt();
+            int restored = 0;
+            for (int i = 0; i < count; i++) {
+                int length = in.getInt();
+                int next = in.position() + length;
+                if (restoreRecord(in)) {
+                    restored++;
+                }
+                in.position(next);
+            }
+            long elapsed = System.nanoTime() - started;
+            restoreTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Restored {} vehicle(s) from checkpoint written {} ms ago in {} ms",
+                    restored, ageMs, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring state checkpoint {}: {}", file, e.getMessage());
+        }
+    }
+
+    private boolean restoreRecord(ByteBuffer in) {
+        in.getInt();
+        int port = in.getShort() & 0xFFFF;
+        int systemId = in.get() & 0xFF;
+        int componentId = in.get() & 0xFF;
+        DroneState state = droneStateRegistry.acquire(port, systemId, componentId);
+        if (state == null) {
+            return false;
+        }
+        TelemetryData data = state.getTelemetry();
+        data.beginWrite();
+        try {
+            data.setDistTraveled(in.getDouble());
+            data.setTimeInAir(in.getLong());
+            int flags = in.get();
+            data.setAirborne((flags & 1) != 0);
+            data.setFlying((flags & 2) != 0);
+            data.setThrottleActive((flags & 4) != 0);
+            data.setStartTime(in.getLong());
+            data.setFlightStartTime(in.getLong());
+            data.setAutoTime(in.getInt());
+            data.setThrottleStartTime(in.getLong());
+            data.setTotalThrottleTime(in.getLong());
+            if (in.get() != 0) {
+                TelemetryData.HomeLocation home = new TelemetryData.HomeLocation();
+                home.setLat(in.getDouble());
+                home.setLon(in.getDouble());
+                state.setHomeLocation(home);
+            }
+            long missionVersion = in.getLong();
+            int waypointCount = in.getShort() & 0xFFFF;
+            List<TelemetryData.Waypoint> waypoints = new ArrayList<>(waypointCount);
+            for (int i = 0; i < waypointCount; i++) {
+                TelemetryData.Waypoint wp = new TelemetryData.Waypoint();
+                wp.setSeq(in.getShort() & 0xFFFF);
+                wp.setLat(in.getDouble());
+                wp.setLon(in.getDouble());
+                wp.setAlt(in.getDouble());
+                waypoints.add(wp);
+            }
+            if (missionVersion > 0) {
+                state.setMission(new MissionSnapshot(missionVersion, waypoints, state.getHomeLocation()));
+                data.setMissionVersion(missionVersion);
+            }
+        } finally {
+            data.endWrite();
+        }
+        // Rebroadcast so clients see restored vehicles and missions without waiting for traffic
+        droneStateRegistry.markDirty(state);
+        if (state.getMission() != null) {
+            droneStateRegistry.markMissionDirty(state);
+        }
+        return true;
+    }
+}
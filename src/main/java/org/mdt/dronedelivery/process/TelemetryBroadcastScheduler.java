@@ -0,0 +1,151 @@
+package org.mdt.dronedelivery.process;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.mdt.dronedelivery.metrics.LatencyTimers;
+import org.mdt.dronedelivery.send.FieldGroup;
+import org.mdt.dronedelivery.send.TelemetryFrame;
+import org.mdt.dronedelivery.send.TelemetryWebSocketService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Vehicles are marked dirty in the DroneStateRegistry as messages arrive and flushed once per tick, one frame per vehicle,
+// so serialization is bounded by tick rate x changed drones instead of by message rate.
+// Each frame is encoded once and the tick's frames are queued on every session as one batch,
+// which goes out as a single WebSocket message per session.
+@Component
+@Slf4j
+public class TelemetryBroadcastScheduler {
+
+    // Keeps mission events from coalescing with the same drone's telemetry in session queues
+    private static final String MISSION_KEY_PREFIX = "mission:";
+
+    private final DroneStateRegistry droneStateRegistry;
+    private final TelemetryWebSocketService telemetryWebSocketService;
+    private final TelemetryFrameEncoder encoder = new TelemetryFrameEncoder();
+    // Consistent copy of the drone being sent; only touched by the broadcast thread
+    private final TelemetryData snapshot = new TelemetryData();
+    // Frames encoded this tick; only touched by the broadcast thread
+    private final List<TelemetryFrame> batch = new ArrayList<>();
+    private final ScheduledExecutorService scheduler;
+    private final long tickMs;
+    private final boolean changedOnly;
+    // null when metrics.latency is off
+    private final Timer serializeLatency;
+
+    public TelemetryBroadcastScheduler(DroneStateRegistry droneStateRegistry,
+                                       TelemetryWebSocketService telemetryWebSocketService,
+                                       @Value("${drone-delivery.broadcast.tick-ms:100}") long tickMs,
+                                       @Value("${drone-delivery.broadcast.changed-only:true}") boolean changedOnly,
+                                       @Value("${drone-delivery.metrics.latency:true}") boolean latencyEnabled,
+                                       MeterRegistry meterRegistry) {
+        this.droneStateRegistry = droneStateRegistry;
+        this.telemetryWebSocketService = telemetryWebSocketService;
+        this.tickMs = tickMs;
+        this.changedOnly = changedOnly;
+        this.serializeLatency = latencyEnabled
+                ? LatencyTimers.latencyTimer("telemetry.publish.latency", "serialize")
+                        .description("Snapshot and JSON encoding of one drone's frame")
+                        .register(meterRegistry)
+                : null;
+        // A released vehicle's mission is no longer replayed to new sessions
+        droneStateRegistry.addReleaseListener(
+                state -> telemetryWebSocketService.dropRetained(MISSION_KEY_PREFIX + state.getFrameKey()));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "telemetry-broadcast");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleAtFixedRate(this::flush, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        log.info("Telemetry broadcast every {}ms ({})", tickMs, changedOnly ? "changed drones only" : "full fleet");
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    void flush() {
+        try {
+            droneStateRegistry.drainMissionDirty(slot -> sendMission(droneStateRegistry.state(slot)));
+            long jsonMasks = telemetryWebSocketService.jsonGroupMasks();
+            if (!changedOnly || telemetryWebSocketService.consumeRefreshRequest()) {
+                droneStateRegistry.clearDirty();
+                for (int slot = 0, size = droneStateRegistry.size(); slot < size; slot++) {
+                    encode(droneStateRegistry.state(slot), jsonMasks);
+                }
+            } else {
+                droneStateRegistry.drainDirty(slot -> encode(droneStateRegistry.state(slot), jsonMasks));
+            }
+            telemetryWebSocketService.broadcast(List.copyOf(batch));
+        } catch (Exception e) {
+            log.error("Error broadcasting telemetry", e);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    // Missions are retained by the WebSocket service so sessions that connect later still get them
+    private void sendMission(DroneState state) {
+        MissionSnapshot mission = state == null ? null : state.getMission();
+        if (mission == null) {
+            return;
+        }
+        int port = state.getPort();
+        int systemId = state.getSystemId();
+        String key = state.getFrameKey();
+        try {
+            byte[] json = encoder.encodeMission(key, port, systemId, state.getComponentId(), mission);
+            telemetryWebSocketService.publishRetained(TelemetryFrame.event(
+                    MISSION_KEY_PREFIX + key, port, systemId, FieldGroup.MISSION, new TextMessage(json)));
+        } catch (IOException e) {
+            log.error("Error encoding mission for {}", key, e);
+        }
+    }
+
+    // One JSON encode per FieldGroup mask some session subscribes to; none for unwatched drones
+    // state is null for a slot released since it was marked
+    private void encode(DroneState state, long jsonMasks) {
+        if (state == null) {
+            return;
+        }
+        int port = state.getPort();
+        long receivedNanos = state.takeUnpublishedSince();
+        long started = serializeLatency != null ? System.nanoTime() : 0;
+        TelemetryData data = state.getTelemetry().snapshot(snapshot);
+        if (!telemetryWebSocketService.isWatched(port, data.getSystemId())) {
+            return;
+        }
+        String key = state.getFrameKey();
+        try {
+            byte[][] json = new byte[FieldGroup.ALL + 1][];
+            for (long masks = jsonMasks; masks != 0; masks &= masks - 1) {
+                int groupMask = Long.numberOfTrailingZeros(masks);
+                json[groupMask] = encoder.encodeEntry(key, data, groupMask);
+            }
+            double[] values = TelemetryFrameEncoder.capture(data);
+            if (serializeLatency != null) {
+                serializeLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+            batch.add(TelemetryFrame.telemetry(
+                    key, port, data.getSystemId(), data.getGcsIp(), values, json, receivedNanos));
+        } catch (IOException e) {
+            log.error("Error encoding telemetry for {}", key, e);
+        }
+    }
+}
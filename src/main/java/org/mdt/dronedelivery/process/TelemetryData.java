@@ -1,17 +1,38 @@
 package org.mdt.dronedelivery.process;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
-import java.util.ArrayList;
-import java.util.List;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// Written by the one pipeline lane that owns the vehicle, read by the broadcast thread. Writers bracket
+// each message with beginWrite/endWrite (a seqlock); readers take a consistent copy with
+// snapshot() instead of reading live fields, so lat/lon or timeInAir/airborne never mix updates.
 @Getter
 @Setter
 public class TelemetryData {
 
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(TelemetryData.class, "sequence", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Odd while a write is in progress
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int sequence;
+
     private int port;
     private String gcsIp;
     private int systemId;
+    private int componentId;
     private double lat;
     private double lon;
     private double alt;
@@ -40,9 +61,12 @@ public class TelemetryData {
     private long timeInAir;
     private double batteryVoltage;
     private double batteryCurrent;
+    private int batteryRemaining;
+    private boolean armed;
+    private long customMode;
+    private int currentWaypoint;
     private int waypointsCount;
-    private HomeLocation homeLocation;
-    private List<Waypoint> waypoints;
+    private long missionVersion;
     private boolean airborne;
     private long startTime;
     private long throttleStartTime;
@@ -60,6 +84,7 @@ public class TelemetryData {
         this.port = 0;
         this.gcsIp = "Unknown";
         this.systemId = 0;
+        this.componentId = 0;
         this.lat = 0.0;
         this.lon = 0.0;
         this.alt = 0.0;
@@ -88,9 +113,12 @@ public class TelemetryData {
         this.timeInAir = 0;
         this.batteryVoltage = 0.0;
         this.batteryCurrent = 0.0;
+        this.batteryRemaining = -1;
+        this.armed = false;
+        this.customMode = 0L;
+        this.currentWaypoint = 0;
         this.waypointsCount = 0;
-        this.homeLocation = new HomeLocation();
-        this.waypoints = new ArrayList<>();
+        this.missionVersion = 0L;
         this.airborne = false;
         this.startTime = 0L;
         this.throttleStartTime = 0L;
@@ -109,6 +137,82 @@ public class TelemetryData {
         this.port = port;
     }
 
+    public void beginWrite() {
+        SEQUENCE.setOpaque(this, (int) SEQUENCE.getOpaque(this) + 1);
+        VarHandle.storeStoreFence();
+    }
+
+    public void endWrite() {
+        SEQUENCE.setRelease(this, (int) SEQUENCE.getOpaque(this) + 1);
+    }
+
+    // Copies a consistent view into target, retrying while the owner is mid-write. Lock-free:
+    // the writer never waits for readers.
+    public TelemetryData snapshot(TelemetryData target) {
+        while (true) {
+            int before = (int) SEQUENCE.getAcquire(this);
+            if ((before & 1) == 0) {
+                target.copyFrom(this);
+                VarHandle.loadLoadFence();
+                if ((int) SEQUENCE.getOpaque(this) == before) {
+                    return target;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void copyFrom(TelemetryData source) {
+        port = source.port;
+        gcsIp = source.gcsIp;
+        systemId = source.systemId;
+        componentId = source.componentId;
+        lat = source.lat;
+        lon = source.lon;
+        alt = source.alt;
+        distTraveled = source.distTraveled;
+        wpDist = source.wpDist;
+        heading = source.heading;
+        targetHeading = source.targetHeading;
+        previousHeading = source.previousHeading;
+        distToHome = source.distToHome;
+        verticalSpeed = source.verticalSpeed;
+        groundSpeed = source.groundSpeed;
+        windVel = source.windVel;
+        airspeed = source.airspeed;
+        gpsHdop = source.gpsHdop;
+        roll = source.roll;
+        pitch = source.pitch;
+        yaw = source.yaw;
+        ch3percent = source.ch3percent;
+        ch3out = source.ch3out;
+        ch9out = source.ch9out;
+        ch10out = source.ch10out;
+        ch11out = source.ch11out;
+        ch12out = source.ch12out;
+        tot = source.tot;
+        toh = source.toh;
+        timeInAir = source.timeInAir;
+        batteryVoltage = source.batteryVoltage;
+        batteryCurrent = source.batteryCurrent;
+        batteryRemaining = source.batteryRemaining;
+        armed = source.armed;
+        customMode = source.customMode;
+        currentWaypoint = source.currentWaypoint;
+        waypointsCount = source.waypointsCount;
+        missionVersion = source.missionVersion;
+        airborne = source.airborne;
+        startTime = source.startTime;
+        throttleStartTime = source.throttleStartTime;
+        totalThrottleTime = source.totalThrottleTime;
+        throttleActive = source.throttleActive;
+        flying = source.flying;
+        flightStartTime = source.flightStartTime;
+        autoTime = source.autoTime;
+        flightStatus = source.flightStatus;
+        timestamp = source.timestamp;
+    }
+
     @Getter
     @Setter
     public static class HomeLocation {
@@ -0,0 +1,339 @@
+package org.mdt.dronedelivery.process;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import org.mdt.dronedelivery.send.FieldGroup;
+import org.mdt.dronedelivery.send.TelemetryField;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// Streams one drone's telemetry entry straight from TelemetryData into a reused byte buffer.
+// Same field names as the old map-based payload, without the boxed HashMap. Single-threaded:
+// owned by the broadcast thread.
+final class TelemetryFrameEncoder {
+
+    private static final SerializableString PORT = new SerializedString("port");
+    private static final SerializableString SYSTEM_ID = new SerializedString("systemId");
+    private static final SerializableString COMPONENT_ID = new SerializedString("componentId");
+    private static final SerializableString GCS_IP = new SerializedString("gcsIp");
+    private static final SerializableString LATITUDE = new SerializedString("latitude");
+    private static final SerializableString LONGITUDE = new SerializedString("longitude");
+    private static final SerializableString ALTITUDE = new SerializedString("altitude");
+    private static final SerializableString HEADING = new SerializedString("heading");
+    private static final SerializableString GROUND_SPEED = new SerializedString("groundSpeed");
+    private static final SerializableString VERTICAL_SPEED = new SerializedString("verticalSpeed");
+    private static final SerializableString AIRSPEED = new SerializedString("airspeed");
+    private static final SerializableString WIND_VELOCITY = new SerializedString("windVelocity");
+    private static final SerializableString GPS_HDOP = new SerializedString("gpsHdop");
+    private static final SerializableString ROLL = new SerializedString("roll");
+    private static final SerializableString PITCH = new SerializedString("pitch");
+    private static final SerializableString YAW = new SerializedString("yaw");
+    private static final SerializableString BATTERY_VOLTAGE = new SerializedString("batteryVoltage");
+    private static final SerializableString BATTERY_CURRENT = new SerializedString("batteryCurrent");
+    private static final SerializableString BATTERY_REMAINING = new SerializedString("batteryRemaining");
+    private static final SerializableString ARMED = new SerializedString("armed");
+    private static final SerializableString CUSTOM_MODE = new SerializedString("customMode");
+    private static final SerializableString CURRENT_WAYPOINT = new SerializedString("currentWaypoint");
+    private static final SerializableString WAYPOINTS = new SerializedString("waypoints");
+    private static final SerializableString HOME_LOCATION = new SerializedString("homeLocation");
+    private static final SerializableString SEQ = new SerializedString("seq");
+    private static final SerializableString LAT = new SerializedString("lat");
+    private static final SerializableString LON = new SerializedString("lon");
+    private static final SerializableString ALT = new SerializedString("alt");
+    private static final SerializableString FLIGHT_STATUS = new SerializedString("flightStatus");
+    private static final SerializableString TIME_IN_AIR = new SerializedString("timeInAir");
+    private static final SerializableString AUTO_TIME = new SerializedString("autoTime");
+    private static final SerializableString THROTTLE_ACTIVE = new SerializedString("throttleActive");
+    private static final SerializableString THROTTLE_TIME_IN_AIR = new SerializedString("throttleTimeInAir");
+    private static final SerializableString DIST_TRAVELED = new SerializedString("distTraveled");
+    private static final SerializableString DIST_TO_HOME = new SerializedString("distToHome");
+    private static final SerializableString WP_DIST = new SerializedString("wpDist");
+    private static final SerializableString TARGET_HEADING = new SerializedString("targetHeading");
+    private static final SerializableString PREVIOUS_HEADING = new SerializedString("previousHeading");
+    private static final SerializableString CH3_PERCENT = new SerializedString("ch3percent");
+    private static final SerializableString CH3_OUT = new SerializedString("ch3out");
+    private static final SerializableString CH9_OUT = new SerializedString("ch9out");
+    private static final SerializableString CH10_OUT = new SerializedString("ch10out");
+    private static final SerializableString CH11_OUT = new SerializedString("ch11out");
+    private static final SerializableString CH12_OUT = new SerializedString("ch12out");
+    private static final SerializableString TOT = new SerializedString("tot");
+    private static final SerializableString TOH = new SerializedString("toh");
+    private static final SerializableString MISSION_VERSION = new SerializedString("missionVersion");
+    private static final SerializableString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializableString MISSION = new SerializedString("mission");
+    private static final SerializableString VERSION = new SerializedString("version");
+
+    private final JsonFactory factory = JsonFactory.builder()
+            .enable(StreamWriteFeature.USE_FAST_DOUBLE_WRITER)
+            .build();
+    private final ByteArrayBuilder buffer = new ByteArrayBuilder(2048);
+    private JsonGenerator generator = newGenerator();
+
+    // One long-lived generator writes every frame as its own root value
+    private JsonGenerator newGenerator() {
+        try {
+            JsonGenerator g = factory.createGenerator(buffer);
+            g.setRootValueSeparator(null);
+            return g;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Numeric fields by TelemetryField ordinal, for the binary subprotocol
+    static double[] capture(TelemetryData data) {
+        double[] v = new double[TelemetryField.COUNT];
+        v[TelemetryField.SYSTEM_ID.ordinal()] = data.getSystemId();
+        v[TelemetryField.LATITUDE.ordinal()] = data.getLat();
+        v[TelemetryField.LONGITUDE.ordinal()] = data.getLon();
+        v[TelemetryField.ALTITUDE.ordinal()] = data.getAlt();
+        v[TelemetryField.HEADING.ordinal()] = data.getHeading();
+        v[TelemetryField.GROUND_SPEED.ordinal()] = data.getGroundSpeed();
+        v[TelemetryField.VERTICAL_SPEED.ordinal()] = data.getVerticalSpeed();
+        v[TelemetryField.AIRSPEED.ordinal()] = data.getAirspeed();
+        v[TelemetryField.WIND_VELOCITY.ordinal()] = data.getWindVel();
+        v[TelemetryField.GPS_HDOP.ordinal()] = data.getGpsHdop();
+        v[TelemetryField.ROLL.ordinal()] = data.getRoll();
+        v[TelemetryField.PITCH.ordinal()] = data.getPitch();
+        v[TelemetryField.YAW.ordinal()] = data.getYaw();
+        v[TelemetryField.BATTERY_VOLTAGE.ordinal()] = data.getBatteryVoltage();
+        v[TelemetryField.BATTERY_CURRENT.ordinal()] = data.getBatteryCurrent();
+        v[TelemetryField.FLIGHT_STATUS.ordinal()] = data.getFlightStatus();
+        v[TelemetryField.TIME_IN_AIR.ordinal()] = data.getTimeInAir();
+        v[TelemetryField.AUTO_TIME.ordinal()] = data.getAutoTime();
+        v[TelemetryField.THROTTLE_ACTIVE.ordinal()] = data.isThrottleActive() ? 1 : 0;
+        v[TelemetryField.THROTTLE_TIME_IN_AIR.ordinal()] = data.getTotalThrottleTime();
+        v[TelemetryField.DIST_TRAVELED.ordinal()] = data.getDistTraveled();
+        v[TelemetryField.DIST_TO_HOME.ordinal()] = data.getDistToHome();
+        v[TelemetryField.WP_DIST.ordinal()] = data.getWpDist();
+        v[TelemetryField.TARGET_HEADING.ordinal()] = data.getTargetHeading();
+        v[TelemetryField.PREVIOUS_HEADING.ordinal()] = data.getPreviousHeading();
+        v[TelemetryField.CH3_PERCENT.ordinal()] = data.getCh3percent();
+        v[TelemetryField.CH3_OUT.ordinal()] = data.getCh3out();
+        v[TelemetryField.CH9_OUT.ordinal()] = data.getCh9out();
+        v[TelemetryField.CH10_OUT.ordinal()] = data.getCh10out();
+        v[TelemetryField.CH11_OUT.ordinal()] = data.getCh11out();
+        v[TelemetryField.CH12_OUT.ordinal()] = data.getCh12out();
+        v[TelemetryField.TOT.ordinal()] = data.getTot();
+        v[TelemetryField.TOH.ordinal()] = data.getToh();
+        v[TelemetryField.MISSION_VERSION.ordinal()] = data.getMissionVersion();
+        v[TelemetryField.COMPONENT_ID.ordinal()] = data.getComponentId();
+        v[TelemetryField.BATTERY_REMAINING.ordinal()] = data.getBatteryRemaining();
+        v[TelemetryField.ARMED.ordinal()] = data.isArmed() ? 1 : 0;
+        v[TelemetryField.CUSTOM_MODE.ordinal()] = data.getCustomMode();
+        v[TelemetryField.CURRENT_WAYPOINT.ordinal()] = data.getCurrentWaypoint();
+        return v;
+    }
+
+    // "<key>": {...} restricted to the FieldGroups in groupMask, encoded once per mask and shared
+    // by every session subscribed to it; sessions splice a tick's entries into one telemetry_data object
+    byte[] encodeEntry(String key, TelemetryData data, int groupMask) throws IOException {
+        try {
+            // The generator's own buffer is empty between frames, so the key goes first
+            buffer.write('"');
+            buffer.write(JsonStringEncoder.getInstance().quoteAsUTF8(key));
+            buffer.write('"');
+            buffer.write(':');
+            writeEntry(generator, data, groupMask);
+            generator.flush();
+            return buffer.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            // A half-written frame leaves the generator mid-object; start over
+            generator = newGenerator();
+            throw e;
+        } finally {
+            buffer.reset();
+        }
+    }
+
+    // {"mission": {"<key>": {"port", "systemId", "componentId", "version", "waypoints": [...], "homeLocation": {...}}}}
+    byte[] encodeMission(String key, int port, int systemId, int componentId, MissionSnapshot mission) throws IOException {
+        try {
+            writeMission(generator, key, port, systemId, componentId, mission);
+            generator.flush();
+            return buffer.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            generator = newGenerator();
+            throw e;
+        } finally {
+            buffer.reset();
+        }
+    }
+
+    private static void writeMission(JsonGenerator g,
+                                     String key,
+                                     int port,
+                                     int systemId,
+                                     int componentId,
+                                     MissionSnapshot mission) throws IOException {
+        g.writeStartObject();
+        g.writeFieldName(MISSION);
+        g.writeStartObject();
+        g.writeFieldName(key);
+        g.writeStartObject();
+
+        g.writeFieldName(PORT);
+        g.writeNumber(port);
+        g.writeFieldName(SYSTEM_ID);
+        g.writeNumber(systemId);
+        g.writeFieldName(COMPONENT_ID);
+        g.writeNumber(componentId);
+        g.writeFieldName(VERSION);
+        g.writeNumber(mission.getVersion());
+
+        g.writeFieldName(WAYPOINTS);
+        g.writeStartArray();
+        for (TelemetryData.Waypoint wp : mission.getWaypoints()) {
+            g.writeStartObject();
+            g.writeFieldName(SEQ);
+            g.writeNumber(wp.getSeq());
+            g.writeFieldName(LAT);
+            g.writeNumber(wp.getLat());
+            g.writeFieldName(LON);
+            g.writeNumber(wp.getLon());
+            g.writeFieldName(ALT);
+            g.writeNumber(wp.getAlt());
+            g.writeEndObject();
+        }
+        g.writeEndArray();
+        TelemetryData.HomeLocation home = mission.getHomeLocation();
+        g.writeFieldName(HOME_LOCATION);
+        g.writeStartObject();
+        g.writeFieldName(LAT);
+        g.writeNumber(home != null ? home.getLat() : 0.0);
+        g.writeFieldName(LON);
+        g.writeNumber(home != null ? home.getLon() : 0.0);
+        g.writeEndObject();
+
+        g.writeEndObject();
+        g.writeEndObject();
+        g.writeEndObject();
+    }
+
+    private static void writeEntry(JsonGenerator g,
+                                   TelemetryData data,
+                                   int groupMask) throws IOException {
+        g.writeStartObject();
+
+        // Basic telemetry
+        g.writeFieldName(PORT);
+        g.writeNumber(data.getPort());
+        g.writeFieldName(SYSTEM_ID);
+        g.writeNumber(data.getSystemId());
+        g.writeFieldName(COMPONENT_ID);
+        g.writeNumber(data.getComponentId());
+        g.writeFieldName(GCS_IP);
+        g.writeString(data.getGcsIp());
+
+        if (FieldGroup.POSITION.in(groupMask)) {
+            // Position & motion
+            g.writeFieldName(LATITUDE);
+            g.writeNumber(data.getLat());
+            g.writeFieldName(LONGITUDE);
+            g.writeNumber(data.getLon());
+            g.writeFieldName(ALTITUDE);
+            g.writeNumber(data.getAlt());
+            g.writeFieldName(HEADING);
+            g.writeNumber(data.getHeading());
+            g.writeFieldName(GROUND_SPEED);
+            g.writeNumber(data.getGroundSpeed());
+            g.writeFieldName(VERTICAL_SPEED);
+            g.writeNumber(data.getVerticalSpeed());
+
+            // Flight parameters
+            g.writeFieldName(AIRSPEED);
+            g.writeNumber(data.getAirspeed());
+            g.writeFieldName(WIND_VELOCITY);
+            g.writeNumber(data.getWindVel());
+            g.writeFieldName(GPS_HDOP);
+            g.writeNumber(data.getGpsHdop());
+            g.writeFieldName(DIST_TRAVELED);
+            g.writeNumber(data.getDistTraveled());
+            g.writeFieldName(DIST_TO_HOME);
+            g.writeNumber(data.getDistToHome());
+        }
+
+        if (FieldGroup.ATTITUDE.in(groupMask)) {
+            g.writeFieldName(ROLL);
+            g.writeNumber(data.getRoll());
+            g.writeFieldName(PITCH);
+            g.writeNumber(data.getPitch());
+            g.writeFieldName(YAW);
+            g.writeNumber(data.getYaw());
+            g.writeFieldName(TARGET_HEADING);
+            g.writeNumber(data.getTargetHeading());
+            g.writeFieldName(PREVIOUS_HEADING);
+            g.writeNumber(data.getPreviousHeading());
+        }
+
+        if (FieldGroup.BATTERY.in(groupMask)) {
+            g.writeFieldName(BATTERY_VOLTAGE);
+            g.writeNumber(data.getBatteryVoltage());
+            g.writeFieldName(BATTERY_CURRENT);
+            g.writeNumber(data.getBatteryCurrent());
+            g.writeFieldName(BATTERY_REMAINING);
+            g.writeNumber(data.getBatteryRemaining());
+        }
+
+        if (FieldGroup.MISSION.in(groupMask)) {
+            // Waypoints and home go out as a separate mission event; frames carry its version
+            g.writeFieldName(MISSION_VERSION);
+            g.writeNumber(data.getMissionVersion());
+            g.writeFieldName(CURRENT_WAYPOINT);
+            g.writeNumber(data.getCurrentWaypoint());
+
+            g.writeFieldName(FLIGHT_STATUS);
+            g.writeNumber(data.getFlightStatus());
+            g.writeFieldName(TIME_IN_AIR);
+            g.writeNumber(data.getTimeInAir());
+            g.writeFieldName(AUTO_TIME);
+            g.writeNumber(data.getAutoTime());
+            g.writeFieldName(THROTTLE_ACTIVE);
+            g.writeBoolean(data.isThrottleActive());
+            g.writeFieldName(THROTTLE_TIME_IN_AIR);
+            g.writeNumber(data.getTotalThrottleTime());
+            g.writeFieldName(WP_DIST);
+            g.writeNumber(data.getWpDist());
+
+            // Time estimates
+            g.writeFieldName(TOT);
+            g.writeNumber(data.getTot());
+            g.writeFieldName(TOH);
+            g.writeNumber(data.getToh());
+        }
+
+        if (FieldGroup.SERVO.in(groupMask)) {
+            g.writeFieldName(CH3_PERCENT);
+            g.writeNumber(data.getCh3percent());
+            g.writeFieldName(CH3_OUT);
+            g.writeNumber(data.getCh3out());
+            g.writeFieldName(CH9_OUT);
+            g.writeNumber(data.getCh9out());
+            g.writeFieldName(CH10_OUT);
+            g.writeNumber(data.getCh10out());
+            g.writeFieldName(CH11_OUT);
+            g.writeNumber(data.getCh11out());
+            g.writeFieldName(CH12_OUT);
+            g.writeNumber(data.getCh12out());
+        }
+
+        if (FieldGroup.STATUS.in(groupMask)) {
+            g.writeFieldName(ARMED);
+            g.writeBoolean(data.isArmed());
+            g.writeFieldName(CUSTOM_MODE);
+            g.writeNumber(data.getCustomMode());
+        }
+
+        // Timestamp
+        g.writeFieldName(TIMESTAMP);
+        g.writeString(data.getTimestamp());
+
+        g.writeEndObject();
+    }
+}
@@ -2,22 +2,23 @@ package org.mdt.dronedelivery.process;
 
 import io.dronefleet.mavlink.ardupilotmega.Wind;
 import io.dronefleet.mavlink.common.*;
+import io.dronefleet.mavlink.minimal.Heartbeat;
+import io.dronefleet.mavlink.minimal.MavAutopilot;
+import io.dronefleet.mavlink.minimal.MavModeFlag;
+import io.dronefleet.mavlink.minimal.MavType;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Slf4j
 public class TelemetryUpdateService {
 
-    private final Map<Integer, List<TelemetryData.Waypoint>> waypointsMap = new ConcurrentHashMap<>();
-    private final Map<Integer, TelemetryData.HomeLocation> homeLocations = new ConcurrentHashMap<>();
-    private final Map<Integer, double[]> lastKnownPosition = new ConcurrentHashMap<>();
+    // Stateless: per-drone state lives in the DroneState handed in by the caller
 
     // ------------------- Global Position -------------------
-    public void applyGlobalPosition(TelemetryData telemetryData, GlobalPositionInt position, int port) {
+    public void applyGlobalPosition(DroneState state, GlobalPositionInt position) {
+        TelemetryData telemetryData = state.getTelemetry();
         double lat = position.lat() / 1e7;
         double lon = position.lon() / 1e7;
         double alt = position.relativeAlt() / 1000.0;
@@ -29,19 +30,18 @@ public class TelemetryUpdateService {
         telemetryData.setGroundSpeed(position.vx() / 100.0);
         telemetryData.setVerticalSpeed(position.vz() / 100.0);
 
-        updateDistance(telemetryData, lat, lon);
+        updateDistance(state, telemetryData, lat, lon);
         updateTimeInAir(telemetryData, alt);
     }
 
-    private void updateDistance(TelemetryData telemetryData, double lat, double lon) {
-        double[] lastPos = lastKnownPosition.get(telemetryData.getPort());
-        if (lastPos != null) {
-            double segment = calculateDistance(lastPos[0], lastPos[1], lat, lon) * 1000.0;
+    private void updateDistance(DroneState state, TelemetryData telemetryData, double lat, double lon) {
+        if (state.hasLastPosition()) {
+            double segment = calculateDistance(state.lastLat(), state.lastLon(), lat, lon) * 1000.0;
             telemetryData.setDistTraveled(telemetryData.getDistTraveled() + segment);
         }
-        lastKnownPosition.put(telemetryData.getPort(), new double[]{lat, lon});
+        state.setLastPosition(lat, lon);
 
-        TelemetryData.HomeLocation home = homeLocations.get(telemetryData.getPort());
+        TelemetryData.HomeLocation home = state.getHomeLocation();
         if (home != null) {
             double distToHome = calculateDistance(lat, lon, home.getLat(), home.getLon()) * 1000.0;
             telemetryData.setDistToHome(distToHome);
@@ -68,6 +68,42 @@ public class TelemetryUpdateService {
         telemetryData.setBatteryCurrent(sysStatus.currentBattery() / 100.0);
     }
 
+    // ------------------- Battery Status -------------------
+    // Only the primary battery; cells at UINT16_MAX are not present
+    public boolean applyBatteryStatus(TelemetryData telemetryData, BatteryStatus batteryStatus) {
+        if (batteryStatus.id() != 0) {
+            return false;
+        }
+        long millivolts = 0;
+        for (Integer cell : batteryStatus.voltages()) {
+            if (cell != null && cell != 0xFFFF) {
+                millivolts += cell;
+            }
+        }
+        if (millivolts > 0) {
+            telemetryData.setBatteryVoltage(millivolts / 1000.0);
+        }
+        if (batteryStatus.currentBattery() >= 0) {
+            telemetryData.setBatteryCurrent(batteryStatus.currentBattery() / 100.0);
+        }
+        telemetryData.setBatteryRemaining(batteryStatus.batteryRemaining());
+        return true;
+    }
+
+    // ------------------- Heartbeat -------------------
+    // Flight controllers only: ground stations (MAV_TYPE_GCS, or system 255 by convention) and
+    // peripherals such as gimbals and cameras (MAV_AUTOPILOT_INVALID) send heartbeats too
+    public static boolean isVehicle(int systemId, Heartbeat heartbeat) {
+        return systemId != 255
+                && heartbeat.type().entry() != MavType.MAV_TYPE_GCS
+                && heartbeat.autopilot().entry() != MavAutopilot.MAV_AUTOPILOT_INVALID;
+    }
+
+    public void applyHeartbeat(TelemetryData telemetryData, Heartbeat heartbeat) {
+        telemetryData.setArmed(heartbeat.baseMode().flagsEnabled(MavModeFlag.MAV_MODE_FLAG_SAFETY_ARMED));
+        telemetryData.setCustomMode(heartbeat.customMode());
+    }
+
     // ------------------- VFR HUD -------------------
     public void applyVfrHud(TelemetryData telemetryData, VfrHud vfrHud) {
         telemetryData.setAirspeed(vfrHud.airspeed());
@@ -92,41 +128,72 @@ public class TelemetryUpdateService {
         telemetryData.setGpsHdop(gpsRawInt.eph());
     }
 
+    // ------------------- Navigation -------------------
+    public void applyMissionCurrent(TelemetryData telemetryData, MissionCurrent missionCurrent) {
+        telemetryData.setCurrentWaypoint(missionCurrent.seq());
+    }
+
+    public void applyNavControllerOutput(TelemetryData telemetryData, NavControllerOutput navControllerOutput) {
+        float targetHeading = navControllerOutput.targetBearing();
+        if (targetHeading != telemetryData.getTargetHeading()) {
+            telemetryData.setPreviousHeading(telemetryData.getTargetHeading());
+            telemetryData.setTargetHeading(targetHeading);
+        }
+        telemetryData.setWpDist(navControllerOutput.wpDist());
+    }
+
     // ------------------- Mission -------------------
-    public void onMissionCount(int port, MissionCount missionCount) {
-        waypointsMap.put(port, new ArrayList<>(Math.max(0, missionCount.count())));
-        log.info("MISSION_COUNT on port {}: {}", port, missionCount.count());
+    // Items accumulate in a pending download; the mission is only published, with a new version,
+    // once the last announced item arrives. Both return true when a new version was published.
+    public boolean onMissionCount(DroneState state, MissionCount missionCount) {
+        int count = Math.max(0, missionCount.count());
+        DroneState.MissionDownload download = new DroneState.MissionDownload(count);
+        state.setMissionDownload(download);
+        log.info("MISSION_COUNT on port {}: {}", state.getPort(), count);
+        return count == 0 && completeMission(state, download);
     }
 
-    public void onMissionItemInt(int port, MissionItemInt missionItemInt) {
+    public boolean onMissionItemInt(DroneState state, MissionItemInt missionItemInt) {
+        DroneState.MissionDownload download = state.getMissionDownload();
+        if (download == null) {
+            log.debug("MISSION_ITEM_INT {} on port {} without MISSION_COUNT", missionItemInt.seq(), state.getPort());
+            return false;
+        }
+
         double lat = missionItemInt.x() / 1e7;
         double lon = missionItemInt.y() / 1e7;
         double alt = missionItemInt.z();
 
-        if (lat == 0.0 && lon == 0.0 && alt == 0.0) return;
+        if (download.accept(missionItemInt.seq()) && !(lat == 0.0 && lon == 0.0 && alt == 0.0)) {
+            TelemetryData.Waypoint wp = new TelemetryData.Waypoint();
+            wp.setSeq(missionItemInt.seq());
+            wp.setLat(lat);
+            wp.setLon(lon);
+            wp.setAlt(alt);
+            download.items.add(wp);
 
-        TelemetryData.Waypoint wp = new TelemetryData.Waypoint();
-        wp.setSeq(missionItemInt.seq());
-        wp.setLat(lat);
-        wp.setLon(lon);
-        wp.setAlt(alt);
-
-        waypointsMap.computeIfAbsent(port, k -> new ArrayList<>()).add(wp);
-
-        if (missionItemInt.seq() == 0) {
-            TelemetryData.HomeLocation home = new TelemetryData.HomeLocation();
-            home.setLat(lat);
-            home.setLon(lon);
-            homeLocations.put(port, home);
+            if (missionItemInt.seq() == 0) {
+                TelemetryData.HomeLocation home = new TelemetryData.HomeLocation();
+                home.setLat(lat);
+                home.setLon(lon);
+                state.setHomeLocation(home);
+            }
         }
-    }
 
-    public List<TelemetryData.Waypoint> getWaypoints(int port) {
-        return waypointsMap.getOrDefault(port, Collections.emptyList());
+        return missionItemInt.seq() >= download.expected - 1 && completeMission(state, download);
     }
 
-    public TelemetryData.HomeLocation getHomeLocation(int port) {
-        return homeLocations.get(port);
+    private boolean completeMission(DroneState state, DroneState.MissionDownload download) {
+        if (state.getMissionDownload() != download) {
+            return false;
+        }
+        state.setMissionDownload(null);
+        MissionSnapshot previous = state.getMission();
+        MissionSnapshot mission = new MissionSnapshot(
+                previous == null ? 1 : previous.getVersion() + 1, download.items, state.getHomeLocation());
+        state.setMission(mission);
+        log.info("Mission v{} on port {}: {} waypoints", mission.getVersion(), state.getPort(), mission.getWaypoints().size());
+        return true;
     }
 
     // ------------------- Attitude -------------------
@@ -189,7 +256,7 @@ public class TelemetryUpdateService {
     }
 
     // ------------------- Utilities -------------------
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+    static double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
         final double R = 6371; // km
         double dLat = Math.toRadians(lat2 - lat1);
         double dLon = Math.toRadians(lon2 - lon1);
@@ -0,0 +1,27 @@
+package org.mdt.dronedelivery.process.handler;
+
+import io.dronefleet.mavlink.common.Attitude;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.TelemetryUpdateService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AttitudeHandler implements MavlinkPayloadHandler<Attitude> {
+
+    private final TelemetryUpdateService telemetryUpdateService;
+
+    public AttitudeHandler(TelemetryUpdateService telemetryUpdateService) {
+        this.telemetryUpdateService = telemetryUpdateService;
+    }
+
+    @Override
+    public Class<Attitude> payloadType() {
+        return Attitude.class;
+    }
+
+    @Override
+    public boolean handle(DroneState state, Attitude payload) {
+        telemetryUpdateService.applyAttitude(state.getTelemetry(), payload);
+        return true;
+    }
+}
@@ -0,0 +1,26 @@
+package org.mdt.dronedelivery.process.handler;
+
+import io.dronefleet.mavlink.common.BatteryStatus;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.TelemetryUpdateService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BatteryStatusHandler implements MavlinkPayloadHandler<BatteryStatus> {
+
+    private final TelemetryUpdateService telemetryUpdateService;
+
+    public BatteryStatusHandler(TelemetryUpdateService telemetryUpdateService) {
+        this.telemetryUpdateService = telemetryUpdateService;
+    }
+
+    @Override
+    public Class<BatteryStatus> payloadType() {
+        return BatteryStatus.class;
+    }
+
+    @Override
+    public boolean handle(DroneState state, BatteryStatus payload) {
+        return telemetryUpdateService.applyBatteryStatus(state.getTelemetry(), payload);
+    }
+}
@@ -0,0 +1,27 @@
+package org.mdt.dronedelivery.process.handler;
+
+import io.dronefleet.mavlink.common.GlobalPositionInt;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.TelemetryUpdateService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class GlobalPositionIntHandler implements MavlinkPayloadHandler<GlobalPositionInt> {
+
+    private final TelemetryUpdateService telemetryUpdateService;
+
+    public GlobalPositionIntHandler(TelemetryUpdateService telemetryUpdateService) {
+        this.telemetryUpdateService = telemetryUpdateService;
+    }
+
+    @Override
+    public Class<GlobalPositionInt> payloadType() {
+        return GlobalPositionInt.class;
+    }
+
+    @Override
+    public boolean handle(DroneState state, GlobalPositionInt payload) {
+        telemetryUpdateService.applyGlobalPosition(state, payload);
+        return true;
+    }
+}
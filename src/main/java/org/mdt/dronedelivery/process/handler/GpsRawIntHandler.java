@@ -0,0 +1,27 @@
+package org.mdt.dronedelivery.process.handler;
+
+import io.dronefleet.mavlink.common.GpsRawInt;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.TelemetryUpdateService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class GpsRawIntHandler implements MavlinkPayloadHandler<GpsRawInt> {
+
+    private final TelemetryUpdateService telemetryUpdateService;
+
+    public GpsRawIntHandler(TelemetryUpdateService telemetryUpdateService) {
+        this.telemetryUpdateService = telemetryUpdateService;
+    }
+
+    @Override
+    public Class<GpsRawInt> payloadType() {
+        return GpsRawInt.class;
+    }
+
+    @Override
+    public boolean handle(DroneState state, GpsRawInt payload) {
+        telemetryUpdateService.applyGpsRaw(state.getTelemetry(), payload);
+        return true;
+    }
+}
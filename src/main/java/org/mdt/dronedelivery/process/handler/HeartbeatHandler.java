@@ -0,0 +1,31 @@
+package org.mdt.dronedelivery.process.handler;
+
+import io.dronefleet.mavlink.minimal.Heartbeat;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.TelemetryUpdateService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class HeartbeatHandler implements MavlinkPayloadHandler<Heartbeat> {
+
+    private final TelemetryUpdateService telemetryUpdateService;
+
+    public HeartbeatHandler(TelemetryUpdateService telemetryUpdateService) {
+        this.telemetryUpdateService = telemetryUpdateService;
+    }
+
+    @Override
+    public Class<Heartbeat> payloadType() {
+        return Heartbeat.class;
+    }
+
+    @Override
+    public boolean handle(DroneState state, Heartbeat payload) {
+        // A ground station or peripheral reusing the vehicle's ids must not overwrite its armed state and mode
+        if (!TelemetryUpdateService.isVehicle(state.getSystemId(), payload)) {
+            return false;
+        }
+        telemetryUpdateService.applyHeartbeat(state.getTelemetry(), payload);
+        return true;
+    }
+}
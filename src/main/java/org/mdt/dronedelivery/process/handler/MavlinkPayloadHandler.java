@@ -0,0 +1,20 @@
+package org.mdt.dronedelivery.process.handler;
+
+import io.dronefleet.mavlink.annotations.MavlinkMessageInfo;
+import org.mdt.dronedelivery.process.DroneState;
+
+// Applies one MAVLink payload type to a vehicle's state. Every bean implementing this is
+// registered with MavlinkMessageHandler under the message id of its payload type; message ids
+// without a handler are dropped by the decoder before they are parsed.
+public interface MavlinkPayloadHandler<T> {
+
+    Class<T> payloadType();
+
+    // Runs on the vehicle's pipeline lane inside its TelemetryData write section.
+    // Returns false when nothing clients see has changed, so no broadcast is scheduled.
+    boolean handle(DroneState state, T payload);
+
+    default int messageId() {
+        return payloadType().getAnnotation(MavlinkMessageInfo.class).id();
+    }
+}
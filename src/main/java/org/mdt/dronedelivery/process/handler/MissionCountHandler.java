@@ -0,0 +1,35 @@
+package org.mdt.dronedelivery.process.handler;
+
+import io.dronefleet.mavlink.common.MissionCount;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.DroneStateRegistry;
+import org.mdt.dronedelivery.process.TelemetryUpdateService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class MissionCountHandler implements MavlinkPayloadHandler<MissionCount> {
+
+    private final TelemetryUpdateService telemetryUpdateService;
+    private final DroneStateRegistry droneStateRegistry;
+
+    public MissionCountHandler(TelemetryUpdateService telemetryUpdateService, DroneStateRegistry droneStateRegistry) {
+        this.telemetryUpdateService = telemetryUpdateService;
+        this.droneStateRegistry = droneStateRegistry;
+    }
+
+    @Override
+    public Class<MissionCount> payloadType() {
+        return MissionCount.class;
+    }
+
+    // Only a completed download changes what clients see: a new mission event and missionVersion
+    @Override
+    public boolean handle(DroneState state, MissionCount payload) {
+        if (!telemetryUpdateService.onMissionCount(state, payload)) {
+            return false;
+        }
+        state.getTelemetry().setMissionVersion(state.getMission().getVersion());
+        droneStateRegistry.markMissionDirty(state);
+        return true;
+    }
+}
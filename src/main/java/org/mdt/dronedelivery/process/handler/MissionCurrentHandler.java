@@ -0,0 +1,27 @@
+package org.mdt.dronedelivery.process.handler;
+
+import io.dronefleet.mavlink.common.MissionCurrent;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.TelemetryUpdateService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class MissionCurrentHandler implements MavlinkPayloadHandler<MissionCurrent> {
+
+    private final TelemetryUpdateService telemetryUpdateService;
+
+    public MissionCurrentHandler(TelemetryUpdateService telemetryUpdateService) {
+        this.telemetryUpdateService = telemetryUpdateService;
+    }
+
+    @Override
+    public Class<MissionCurrent> payloadType() {
+        return MissionCurrent.class;
+    }
+
+    @Override
+    public boolean handle(DroneState state, MissionCurrent payload) {
+        telemetryUpdateService.applyMissionCurrent(state.getTelemetry(), payload);
+        return true;
+    }
+}
@@ -0,0 +1,35 @@
+package org.mdt.dronedelivery.process.handler;
+
+import io.dronefleet.mavlink.common.MissionItemInt;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.DroneStateRegistry;
+import org.mdt.dronedelivery.process.TelemetryUpdateService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class MissionItemIntHandler implements MavlinkPayloadHandler<MissionItemInt> {
+
+    private final TelemetryUpdateService telemetryUpdateService;
+    private final DroneStateRegistry droneStateRegistry;
+
+    public MissionItemIntHandler(TelemetryUpdateService telemetryUpdateService, DroneStateRegistry droneStateRegistry) {
+        this.telemetryUpdateService = telemetryUpdateService;
+        this.droneStateRegistry = droneStateRegistry;
+    }
+
+    @Override
+    public Class<MissionItemInt> payloadType() {
+        return MissionItemInt.class;
+    }
+
+    // Only a completed download changes what clients see: a new mission event and missionVersion
+    @Override
+    public boolean handle(DroneState state, MissionItemInt payload) {
+        if (!telemetryUpdateService.onMissionItemInt(state, payload)) {
+            return false;
+        }
+        state.getTelemetry().setMissionVersion(state.getMission().getVersion());
+        droneStateRegistry.markMissionDirty(state);
+        return true;
+    }
+}
@@ -0,0 +1,27 @@
+package org.mdt.dronedelivery.process.handler;
+
+import io.dronefleet.mavlink.common.NavControllerOutput;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.TelemetryUpdateService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class NavControllerOutputHandler implements MavlinkPayloadHandler<NavControllerOutput> {
+
+    private final TelemetryUpdateService telemetryUpdateService;
+
+    public NavControllerOutputHandler(TelemetryUpdateService telemetryUpdateService) {
+        this.telemetryUpdateService = telemetryUpdateService;
+    }
+
+    @Override
+    public Class<NavControllerOutput> payloadType() {
+        return NavControllerOutput.class;
+    }
+
+    @Override
+    public boolean handle(DroneState state, NavControllerOutput payload) {
+        telemetryUpdateService.applyNavControllerOutput(state.getTelemetry(), payload);
+        return true;
+    }
+}
@@ -0,0 +1,27 @@
+package org.mdt.dronedelivery.process.handler;
+
+import io.dronefleet.mavlink.common.ServoOutputRaw;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.TelemetryUpdateService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ServoOutputRawHandler implements MavlinkPayloadHandler<ServoOutputRaw> {
+
+    private final TelemetryUpdateService telemetryUpdateService;
+
+    public ServoOutputRawHandler(TelemetryUpdateService telemetryUpdateService) {
+        this.telemetryUpdateService = telemetryUpdateService;
+    }
+
+    @Override
+    public Class<ServoOutputRaw> payloadType() {
+        return ServoOutputRaw.class;
+    }
+
+    @Override
+    public boolean handle(DroneState state, ServoOutputRaw payload) {
+        telemetryUpdateService.applyServoOutputs(state.getTelemetry(), payload);
+        return true;
+    }
+}
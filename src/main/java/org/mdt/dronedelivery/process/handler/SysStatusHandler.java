@@ -0,0 +1,27 @@
+package org.mdt.dronedelivery.process.handler;
+
+import io.dronefleet.mavlink.common.SysStatus;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.TelemetryUpdateService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SysStatusHandler implements MavlinkPayloadHandler<SysStatus> {
+
+    private final TelemetryUpdateService telemetryUpdateService;
+
+    public SysStatusHandler(TelemetryUpdateService telemetryUpdateService) {
+        this.telemetryUpdateService = telemetryUpdateService;
+    }
+
+    @Override
+    public Class<SysStatus> payloadType() {
+        return SysStatus.class;
+    }
+
+    @Override
+    public boolean handle(DroneState state, SysStatus payload) {
+        telemetryUpdateService.applySysStatus(state.getTelemetry(), payload);
+        return true;
+    }
+}
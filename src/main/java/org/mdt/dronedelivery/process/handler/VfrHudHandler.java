@@ -0,0 +1,27 @@
+package org.mdt.dronedelivery.process.handler;
+
+import io.dronefleet.mavlink.common.VfrHud;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.TelemetryUpdateService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class VfrHudHandler implements MavlinkPayloadHandler<VfrHud> {
+
+    private final TelemetryUpdateService telemetryUpdateService;
+
+    public VfrHudHandler(TelemetryUpdateService telemetryUpdateService) {
+        this.telemetryUpdateService = telemetryUpdateService;
+    }
+
+    @Override
+    public Class<VfrHud> payloadType() {
+        return VfrHud.class;
+    }
+
+    @Override
+    public boolean handle(DroneState state, VfrHud payload) {
+        telemetryUpdateService.applyVfrHud(state.getTelemetry(), payload);
+        return true;
+    }
+}
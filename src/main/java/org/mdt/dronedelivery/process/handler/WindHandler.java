@@ -0,0 +1,27 @@
+package org.mdt.dronedelivery.process.handler;
+
+import io.dronefleet.mavlink.ardupilotmega.Wind;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.TelemetryUpdateService;
+import org.springframework.stereotype.Component;
+
+@Component
+public class WindHandler implements MavlinkPayloadHandler<Wind> {
+
+    private final TelemetryUpdateService telemetryUpdateService;
+
+    public WindHandler(TelemetryUpdateService telemetryUpdateService) {
+        this.telemetryUpdateService = telemetryUpdateService;
+    }
+
+    @Override
+    public Class<Wind> payloadType() {
+        return Wind.class;
+    }
+
+    @Override
+    public boolean handle(DroneState state, Wind payload) {
+        telemetryUpdateService.applyWind(state.getTelemetry(), payload);
+        return true;
+    }
+}
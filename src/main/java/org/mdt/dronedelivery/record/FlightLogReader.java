@@ -0,0 +1,93 @@
+package org.mdt.dronedelivery.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.mdt.dronedelivery.record.FlightLogSegment.*;
+
+// Reads records back out of a FlightRecorder directory in time order, using each segment's
+// time index to skip straight to the first record at or after fromMillis.
+public final class FlightLogReader {
+
+    @FunctionalInterface
+    public interface RecordVisitor {
+        // frame is only valid for the duration of the call
+        void onRecord(long receivedMillis, int port, ByteBuffer frame);
+    }
+
+    private FlightLogReader() {
+    }
+
+    // port 0 reads every drone
+    public static void read(Path directory, int port, long fromMillis, long toMillis, RecordVisitor visitor) throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            long start = startMillis(segments.get(i));
+            long end = i + 1 < segments.size() ? startMillis(segments.get(i + 1)) : Long.MAX_VALUE;
+            if (start > toMillis || end < fromMillis) {
+                continue;
+            }
+            readSegment(segments.get(i), port, fromMillis, toMillis, visitor);
+        }
+    }
+
+    private static void readSegment(Path path, int port, long fromMillis, long toMillis, RecordVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            readRecords(path, mapped.order(ByteOrder.LITTLE_ENDIAN), port, fromMillis, toMillis, visitor);
+        }
+    }
+
+    private static void readRecords(Path path, ByteBuffer mapped, int port, long fromMillis, long toMillis,
+                                    RecordVisitor visitor) throws IOException {
+        if (mapped.remaining() < HEADER_LENGTH || mapped.getInt(0) != MAGIC) {
+            throw new IOException("Not a flight log segment: " + path);
+        }
+        mapped.position(seek(path, fromMillis));
+        ByteBuffer frame = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        while (mapped.remaining() >= RECORD_HEADER_LENGTH) {
+            long receivedMillis = mapped.getLong();
+            if (receivedMillis == 0 || receivedMillis > toMillis) {
+                return;
+            }
+            int recordPort = mapped.getShort() & 0xFFFF;
+            int length = mapped.getShort() & 0xFFFF;
+            int offset = mapped.position();
+            mapped.position(offset + length);
+            if (receivedMillis >= fromMillis && (port == 0 || port == recordPort)) {
+                frame.limit(offset + length).position(offset);
+                visitor.onRecord(receivedMillis, recordPort, frame);
+            }
+        }
+    }
+
+    // Offset of the last index entry at or before fromMillis
+    private static int seek(Path segment, long fromMillis) throws IOException {
+        Path index = indexPath(segment);
+        if (!Files.exists(index)) {
+            return HEADER_LENGTH;
+        }
+        ByteBuffer entries = ByteBuffer.wrap(Files.readAllBytes(index)).order(ByteOrder.LITTLE_ENDIAN);
+        int offset = HEADER_LENGTH;
+        while (entries.remaining() >= INDEX_ENTRY_LENGTH) {
+            long millis = entries.getLong();
+            int entryOffset = entries.getInt();
+            if (millis > fromMillis) {
+                break;
+            }
+            offset = entryOffset;
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,153 @@
+package org.mdt.dronedelivery.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// One memory-mapped segment of the flight log plus its time index.
+//
+//   segment: u32 magic "FLOG" | u16 version | u16 reserved | u64 start millis | 16 reserved bytes
+//            then records: u64 received millis | u16 port | u16 length | raw MAVLink frame
+//            a zero timestamp (the unwritten tail of the mapping) ends the segment
+//   index:   u64 millis | u32 offset, one entry per INDEX_INTERVAL_MS of data
+//
+// Files are named flight-<start millis>.seg; a segment started in the same millisecond as an
+// existing one gets a _NN suffix, which sorts after it.
+//
+// Not thread-safe; owned by the FlightRecorder writer thread.
+final class FlightLogSegment implements AutoCloseable {
+
+    static final int MAGIC = 0x464C4F47;
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 32;
+    static final int RECORD_HEADER_LENGTH = 12;
+    static final int INDEX_ENTRY_LENGTH = 12;
+    static final long INDEX_INTERVAL_MS = 1000;
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final String INDEX_SUFFIX = ".idx";
+    private static final int MAX_COLLISIONS = 99;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer mapped;
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    private final long startMillis;
+    private long lastIndexedMillis = Long.MIN_VALUE;
+    private long lastRecordMillis;
+
+    private FlightLogSegment(Path path, FileChannel channel, int size, long startMillis) throws IOException {
+        this.path = path;
+        this.startMillis = startMillis;
+        this.channel = channel;
+        // The segment name is ours, so an index left behind by a crashed run is stale
+        this.indexChannel = FileChannel.open(indexPath(path), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        this.mapped.order(ByteOrder.LITTLE_ENDIAN);
+        mapped.putInt(MAGIC);
+        mapped.putShort((short) VERSION);
+        mapped.putShort((short) 0);
+        mapped.putLong(startMillis);
+        mapped.position(HEADER_LENGTH);
+    }
+
+    static FlightLogSegment create(Path directory, int size, long startMillis) throws IOException {
+        for (int collision = 0; ; collision++) {
+            Path path = directory.resolve(fileName(startMillis, collision));
+            FileChannel channel;
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (FileAlreadyExistsException e) {
+                if (collision == MAX_COLLISIONS) {
+                    throw e;
+                }
+                continue;
+            }
+            try {
+                return new FlightLogSegment(path, channel, size, startMillis);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+    }
+
+    static String fileName(long startMillis, int collision) {
+        return collision == 0
+                ? String.format("flight-%013d%s", startMillis, SEGMENT_SUFFIX)
+                : String.format("flight-%013d_%02d%s", startMillis, collision, SEGMENT_SUFFIX);
+    }
+
+    static long startMillis(Path segment) {
+        String name = segment.getFileName().toString();
+        int end = name.indexOf('_');
+        return Long.parseLong(name.substring("flight-".length(), end < 0 ? name.length() - SEGMENT_SUFFIX.length() : end));
+    }
+
+    static Path indexPath(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    // false when the record does not fit and the segment has to be rolled
+    boolean append(long receivedMillis, int port, byte[] frame, int length) throws IOException {
+        // Keep room for the zero timestamp that terminates the segment
+        if (mapped.remaining() < RECORD_HEADER_LENGTH + length + Long.BYTES) {
+            return false;
+        }
+        if (receivedMillis - lastIndexedMillis >= INDEX_INTERVAL_MS) {
+            indexEntry.clear();
+            indexEntry.putLong(receivedMillis).putInt(mapped.position()).flip();
+            indexChannel.write(indexEntry);
+            lastIndexedMillis = receivedMillis;
+        }
+        mapped.putLong(receivedMillis);
+        mapped.putShort((short) port);
+        mapped.putShort((short) length);
+        mapped.put(frame, 0, length);
+        lastRecordMillis = receivedMillis;
+        return true;
+    }
+
+    void force() {
+        mapped.force();
+    }
+
+    long startMillis() {
+        return startMillis;
+    }
+
+    // Bytes on disk once closed
+    long writtenBytes() {
+        return mapped.position() + Long.BYTES;
+    }
+
+    long lastRecordMillis() {
+        return lastRecordMillis;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    // Trims the file to what was written so closed segments cost only their data on disk. The
+    // mapping goes away when the buffer is garbage collected; nothing touches it after close, so
+    // truncating underneath it is safe.
+    @Override
+    public void close() throws IOException {
+        long written = writtenBytes();
+        mapped.force();
+        try {
+            channel.truncate(written);
+        } finally {
+            channel.close();
+            indexChannel.close();
+        }
+    }
+}
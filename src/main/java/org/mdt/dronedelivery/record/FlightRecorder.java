@@ -0,0 +1,248 @@
+package org.mdt.dronedelivery.record;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+// Append-only flight log of every CRC-valid MAVLink frame with its receive time and port, so a
+// drone's flight can be read back (FlightLogReader) or replayed. Receive threads copy the frame
+// into a preallocated ring and return; one writer thread batches records into rolling
+// memory-mapped FlightLogSegments and enforces retention by age and total size.
+@Component
+@Slf4j
+public class FlightRecorder {
+
+    // Largest MAVLink v2 frame: 10 header + 255 payload + 2 CRC + 13 signature
+    private static final int MAX_FRAME_LENGTH = 280;
+    private static final long FORCE_INTERVAL_MS = 1000;
+    private static final long RETENTION_INTERVAL_MS = 60_000;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxAgeMillis;
+    private final long maxSizeBytes;
+    private final Slot[] slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final int mask;
+    private final Counter framesWritten;
+    private final Counter framesDropped;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean parked;
+    private FlightLogSegment segment;
+
+    public FlightRecorder(@Value("${drone-delivery.recorder.enabled:false}") boolean enabled,
+                          @Value("${drone-delivery.recorder.directory:recordings}") String directory,
+                          @Value("${drone-delivery.recorder.segment-size-mb:64}") int segmentSizeMb,
+                          @Value("${drone-delivery.recorder.ring-size:65536}") int ringSize,
+                          @Value("${drone-delivery.recorder.retention.max-age-hours:72}") long maxAgeHours,
+                          @Value("${drone-delivery.recorder.retention.max-size-mb:10240}") long maxSizeMb,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.maxAgeMillis = TimeUnit.HOURS.toMillis(maxAgeHours);
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        int capacity = enabled ? Integer.highestOneBit(Math.max(2, ringSize - 1)) << 1 : 0;
+        this.slots = new Slot[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.framesWritten = Counter.builder("recorder.frames.written").register(meterRegistry);
+        this.framesDropped = Counter.builder("recorder.frames.dropped")
+                .description("Frames lost because the recorder ring was full")
+                .register(meterRegistry);
+        this.writer = new Thread(this::writeLoop, "flight-recorder");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        writer.start();
+        log.info("Flight recorder writing to {} ({} MB segments, {} slot ring)",
+                directory.toAbsolutePath(), segmentSize / (1024 * 1024), slots.length);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(5000);
+    }
+
+    // Receive-thread side: one copy into the ring, never blocks
+    public void record(int port, ByteBuffer buffer, int start, int length) {
+        if (!enabled || length > MAX_FRAME_LENGTH) {
+            return;
+        }
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    Slot slot = slots[index];
+                    slot.receivedMillis = System.currentTimeMillis();
+                    slot.port = port;
+                    slot.length = length;
+                    buffer.get(start, slot.bytes, 0, length);
+                    sequences.set(index, position + 1);
+                    if (parked) {
+                        LockSupport.unpark(writer);
+                    }
+                    return;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                framesDropped.increment();
+                return;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        long head = 0;
+        long lastForce = System.currentTimeMillis();
+        long lastRetention = 0;
+        while (true) {
+            int index = (int) head & mask;
+            if (sequences.get(index) == head + 1) {
+                Slot slot = slots[index];
+                try {
+                    write(slot);
+                    framesWritten.increment();
+                } catch (IOException e) {
+                    log.error("Flight recorder write failed: {}", e.getMessage());
+                    closeSegment();
+                }
+                sequences.set(index, head + slots.length);
+                head++;
+                continue;
+            }
+            if (!running) {
+                break;
+            }
+            long now = System.currentTimeMillis();
+            if (segment != null && now - lastForce >= FORCE_INTERVAL_MS) {
+                segment.force();
+                lastForce = now;
+            }
+            if (now - lastRetention >= RETENTION_INTERVAL_MS) {
+                applyRetention(now);
+                lastRetention = now;
+            }
+            parked = true;
+            if (sequences.get(index) != head + 1) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+            parked = false;
+        }
+        closeSegment();
+    }
+
+    private void write(Slot slot) throws IOException {
+        if (segment == null) {
+            segment = FlightLogSegment.create(directory, segmentSize, slot.receivedMillis);
+        }
+        if (!segment.append(slot.receivedMillis, slot.port, slot.bytes, slot.length)) {
+            closeSegment();
+            segment = FlightLogSegment.create(directory, segmentSize, slot.receivedMillis);
+            segment.append(slot.receivedMillis, slot.port, slot.bytes, slot.length);
+        }
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.close();
+        } catch (IOException e) {
+            log.error("Failed to close flight log segment {}: {}", segment.path(), e.getMessage());
+        }
+        segment = null;
+    }
+
+    // Oldest closed segments go first; the open segment counts toward the size limit but is never deleted
+    private void applyRetention(long now) {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> p.getFileName().toString().endsWith(FlightLogSegment.SEGMENT_SUFFIX))
+                    .sorted()
+                    .forEach(segments::add);
+        } catch (IOException e) {
+            log.warn("Flight log retention skipped: {}", e.getMessage());
+            return;
+        }
+        if (segment != null) {
+            segments.remove(segment.path());
+        }
+        long total = segment != null ? segment.writtenBytes() : 0;
+        for (Path path : segments) {
+            total += sizeOf(path);
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = segments.get(i);
+            // A segment ends where the next one starts
+            long endMillis = i + 1 < segments.size()
+                    ? FlightLogSegment.startMillis(segments.get(i + 1))
+                    : segment != null ? segment.startMillis() : now;
+            if (now - endMillis <= maxAgeMillis && total <= maxSizeBytes) {
+                break;
+            }
+            total -= sizeOf(path);
+            try {
+                Files.deleteIfExists(path);
+                Files.deleteIfExists(FlightLogSegment.indexPath(path));
+                log.info("Flight log retention removed {}", path.getFileName());
+            } catch (IOException e) {
+                log.warn("Could not remove {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static final class Slot {
+        private final byte[] bytes = new byte[MAX_FRAME_LENGTH];
+        private long receivedMillis;
+        private int port;
+        private int length;
+    }
+}
@@ -0,0 +1,135 @@
+package org.mdt.dronedelivery.replay;
+
+import lombok.extern.slf4j.Slf4j;
+import org.mdt.dronedelivery.accept.MavlinkCrc;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+// Re-emits a recording over UDP as many synthetic drones. Every datagram is copied once per
+// drone, its frames get the drone's system id and position offset, and their CRCs are recomputed
+// so the receiver accepts them as genuine traffic. Usable standalone (ReplayRunner) or from tests.
+@Slf4j
+public final class MavlinkReplayer {
+
+    private static final int GLOBAL_POSITION_INT = 33;
+    private static final int GPS_RAW_INT = 24;
+    private static final int MISSION_ITEM_INT = 73;
+
+    private final List<ReplayRecord> records;
+    private final ReplayOptions options;
+    private final ByteBuffer out = ByteBuffer.allocate(65_507).order(ByteOrder.LITTLE_ENDIAN);
+
+    public MavlinkReplayer(List<ReplayRecord> records, ReplayOptions options) {
+        this.records = records;
+        this.options = options;
+    }
+
+    // .pcap files are read as captures, anything else as a tlog
+    public static List<ReplayRecord> load(Path recording, int udpPort) throws IOException {
+        String name = recording.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".pcap") ? PcapReader.read(recording, udpPort) : TlogReader.read(recording);
+    }
+
+    public ReplayResult run() throws IOException {
+        InetSocketAddress[] targets = new InetSocketAddress[options.getPortCount()];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = new InetSocketAddress(options.getTargetHost(), options.getBasePort() + i);
+        }
+        int columns = (int) Math.ceil(Math.sqrt(options.getDrones()));
+        long datagrams = 0;
+        long bytes = 0;
+        long started = System.nanoTime();
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            for (int loop = 0; loop < options.getLoops() && !records.isEmpty(); loop++) {
+                long loopStarted = System.nanoTime();
+                long firstMicros = records.get(0).getTimestampMicros();
+                for (ReplayRecord record : records) {
+                    pace(loopStarted, record.getTimestampMicros() - firstMicros);
+                    for (int drone = 0; drone < options.getDrones(); drone++) {
+                        int systemId = (options.getFirstSystemId() + drone - 1) % 255 + 1;
+                        int latOffset = (int) Math.round(drone / columns * options.getOffsetDegrees() * 1e7);
+                        int lonOffset = (int) Math.round(drone % columns * options.getOffsetDegrees() * 1e7);
+                        rewrite(record.getDatagram(), systemId, latOffset, lonOffset);
+                        bytes += channel.send(out, targets[drone % targets.length]);
+                        datagrams++;
+                    }
+                }
+            }
+        }
+        ReplayResult result = new ReplayResult(datagrams, bytes, System.nanoTime() - started);
+        log.info("Replay finished: {}", result);
+        return result;
+    }
+
+    private void pace(long loopStarted, long recordedMicros) {
+        if (options.getSpeed() <= 0) {
+            return;
+        }
+        long due = loopStarted + (long) (recordedMicros * 1000 / options.getSpeed());
+        long wait;
+        while ((wait = due - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    // Copies the datagram into out, rewriting every frame in it for one synthetic drone
+    private void rewrite(byte[] datagram, int systemId, int latOffset, int lonOffset) {
+        out.clear();
+        out.put(datagram);
+        out.flip();
+        int position = 0;
+        while (position + 3 <= out.limit()) {
+            int magic = out.get(position) & 0xFF;
+            int length = TlogReader.frameLength(out, position, magic);
+            if (length < 0 || position + length > out.limit()) {
+                position++;
+                continue;
+            }
+            rewriteFrame(position, magic == 0xFE, systemId, latOffset, lonOffset);
+            position += length;
+        }
+    }
+
+    private void rewriteFrame(int start, boolean v1, int systemId, int latOffset, int lonOffset) {
+        int payloadLength = out.get(start + 1) & 0xFF;
+        int headerLength = v1 ? 6 : 10;
+        int messageId = v1
+                ? out.get(start + 5) & 0xFF
+                : (out.get(start + 7) & 0xFF) | (out.get(start + 8) & 0xFF) << 8 | (out.get(start + 9) & 0xFF) << 16;
+        out.put(start + (v1 ? 3 : 5), (byte) systemId);
+
+        int payload = start + headerLength;
+        switch (messageId) {
+            case GLOBAL_POSITION_INT -> offset(payload, payloadLength, 4, 8, latOffset, lonOffset);
+            case GPS_RAW_INT -> offset(payload, payloadLength, 8, 12, latOffset, lonOffset);
+            case MISSION_ITEM_INT -> offset(payload, payloadLength, 16, 20, latOffset, lonOffset);
+            default -> {
+            }
+        }
+
+        int crcExtra = MavlinkCrc.crcExtra(messageId);
+        if (crcExtra >= 0) {
+            int crcOffset = payload + payloadLength;
+            int crc = MavlinkCrc.calculate(out, start + 1, crcOffset, crcExtra);
+            out.put(crcOffset, (byte) crc);
+            out.put(crcOffset + 1, (byte) (crc >>> 8));
+        }
+    }
+
+    // v2 trims trailing zero bytes, so a truncated payload has no position to shift
+    private void offset(int payload, int payloadLength, int latAt, int lonAt, int latOffset, int lonOffset) {
+        if (payloadLength < lonAt + Integer.BYTES) {
+            return;
+        }
+        out.putInt(payload + latAt, out.getInt(payload + latAt) + latOffset);
+        out.putInt(payload + lonAt, out.getInt(payload + lonAt) + lonOffset);
+    }
+}
@@ -0,0 +1,92 @@
+package org.mdt.dronedelivery.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Classic libpcap captures (not pcapng) of UDP traffic. Each IPv4 UDP payload becomes one
+// record, so datagrams carrying several MAVLink frames are replayed exactly as captured.
+public final class PcapReader {
+
+    private static final int MAGIC_MICROS = 0xA1B2C3D4;
+    private static final int MAGIC_NANOS = 0xA1B23C4D;
+    private static final int LINKTYPE_ETHERNET = 1;
+    private static final int LINKTYPE_RAW = 101;
+    private static final int LINKTYPE_LINUX_SLL = 113;
+    private static final int LINKTYPE_IPV4 = 228;
+
+    private PcapReader() {
+    }
+
+    // udpPort 0 keeps every UDP datagram, otherwise only those sent to that port
+    public static List<ReplayRecord> read(Path path, int udpPort) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path));
+        int magic = in.getInt(0);
+        if (Integer.reverseBytes(magic) == MAGIC_MICROS || Integer.reverseBytes(magic) == MAGIC_NANOS) {
+            in.order(ByteOrder.LITTLE_ENDIAN);
+            magic = Integer.reverseBytes(magic);
+        }
+        if (magic != MAGIC_MICROS && magic != MAGIC_NANOS) {
+            throw new IOException("Not a pcap file (pcapng is not supported): " + path);
+        }
+        boolean nanos = magic == MAGIC_NANOS;
+        int linkType = in.getInt(20);
+        in.position(24);
+
+        List<ReplayRecord> records = new ArrayList<>();
+        while (in.remaining() >= 16) {
+            long seconds = in.getInt() & 0xFFFFFFFFL;
+            long fraction = in.getInt() & 0xFFFFFFFFL;
+            int captured = in.getInt();
+            in.getInt();
+            int packetStart = in.position();
+            if (captured < 0 || captured > in.remaining()) {
+                break;
+            }
+            long micros = seconds * 1_000_000 + (nanos ? fraction / 1000 : fraction);
+            byte[] payload = udpPayload(in, packetStart, captured, linkType, udpPort);
+            if (payload != null) {
+                records.add(new ReplayRecord(micros, payload));
+            }
+            in.position(packetStart + captured);
+        }
+        return records;
+    }
+
+    private static byte[] udpPayload(ByteBuffer in, int start, int length, int linkType, int udpPort) {
+        int ip;
+        switch (linkType) {
+            case LINKTYPE_ETHERNET -> {
+                if (length < 14 || (in.get(start + 12) & 0xFF) != 0x08 || in.get(start + 13) != 0x00) {
+                    return null;
+                }
+                ip = start + 14;
+            }
+            case LINKTYPE_LINUX_SLL -> ip = start + 16;
+            case LINKTYPE_RAW, LINKTYPE_IPV4 -> ip = start;
+            default -> {
+                return null;
+            }
+        }
+        int end = start + length;
+        if (end - ip < 20 || (in.get(ip) & 0xF0) != 0x40 || in.get(ip + 9) != 17) {
+            return null;
+        }
+        int udp = ip + (in.get(ip) & 0x0F) * 4;
+        if (end - udp < 8) {
+            return null;
+        }
+        int destinationPort = ((in.get(udp + 2) & 0xFF) << 8) | (in.get(udp + 3) & 0xFF);
+        if (udpPort != 0 && destinationPort != udpPort) {
+            return null;
+        }
+        int udpLength = ((in.get(udp + 4) & 0xFF) << 8) | (in.get(udp + 5) & 0xFF);
+        int payloadEnd = Math.min(end, udp + udpLength);
+        return Arrays.copyOfRange(in.array(), udp + 8, payloadEnd);
+    }
+}
@@ -0,0 +1,30 @@
+package org.mdt.dronedelivery.replay;
+
+import lombok.Builder;
+import lombok.Getter;
+
+// How a recording is fanned out: drone i goes to basePort + i % portCount with system id
+// firstSystemId + i, its positions shifted by a grid of offsetDegrees.
+@Getter
+@Builder
+public final class ReplayOptions {
+
+    @Builder.Default
+    private final String targetHost = "127.0.0.1";
+    @Builder.Default
+    private final int basePort = 1500;
+    @Builder.Default
+    private final int portCount = 1;
+    @Builder.Default
+    private final int drones = 1;
+    @Builder.Default
+    private final int firstSystemId = 1;
+    // Spacing between synthetic drones so they do not sit on top of each other
+    @Builder.Default
+    private final double offsetDegrees = 0.001;
+    // 1.0 = recorded pace, 10.0 = ten times faster, 0 = as fast as the socket accepts
+    @Builder.Default
+    private final double speed = 1.0;
+    @Builder.Default
+    private final int loops = 1;
+}
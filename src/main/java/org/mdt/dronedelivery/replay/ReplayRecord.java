@@ -0,0 +1,16 @@
+package org.mdt.dronedelivery.replay;
+
+import lombok.Getter;
+
+// One datagram from a recording: when it was captured and the MAVLink bytes it carried
+@Getter
+public final class ReplayRecord {
+
+    private final long timestampMicros;
+    private final byte[] datagram;
+
+    public ReplayRecord(long timestampMicros, byte[] datagram) {
+        this.timestampMicros = timestampMicros;
+        this.datagram = datagram;
+    }
+}
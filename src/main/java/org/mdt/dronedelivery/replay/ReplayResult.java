@@ -0,0 +1,27 @@
+package org.mdt.dronedelivery.replay;
+
+import lombok.Getter;
+
+@Getter
+public final class ReplayResult {
+
+    private final long datagrams;
+    private final long bytes;
+    private final long elapsedNanos;
+
+    ReplayResult(long datagrams, long bytes, long elapsedNanos) {
+        this.datagrams = datagrams;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public double datagramsPerSecond() {
+        return elapsedNanos == 0 ? 0 : datagrams * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d datagrams, %d bytes in %.2fs (%.0f datagrams/s)",
+                datagrams, bytes, elapsedNanos / 1e9, datagramsPerSecond());
+    }
+}
@@ -0,0 +1,70 @@
+package org.mdt.dronedelivery.replay;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// Standalone replay mode: start the app with --drone-delivery.replay.file=<tlog|pcap> and it
+// drives its own (or, with replay.target-host, another node's) UDP ports with the recording.
+@Component
+@ConditionalOnProperty(name = "drone-delivery.replay.file")
+@Slf4j
+public class ReplayRunner implements ApplicationRunner {
+
+    private final ConfigurableApplicationContext context;
+    private final Path file;
+    private final boolean exitWhenDone;
+    private final ReplayOptions options;
+    private final int pcapPort;
+
+    public ReplayRunner(ConfigurableApplicationContext context,
+                        @Value("${drone-delivery.replay.file}") String file,
+                        @Value("${drone-delivery.replay.target-host:127.0.0.1}") String targetHost,
+                        @Value("${drone-delivery.replay.base-port:1500}") int basePort,
+                        @Value("${drone-delivery.replay.port-count:1}") int portCount,
+                        @Value("${drone-delivery.replay.drones:1}") int drones,
+                        @Value("${drone-delivery.replay.speed:1.0}") double speed,
+                        @Value("${drone-delivery.replay.loops:1}") int loops,
+                        @Value("${drone-delivery.replay.pcap-port:0}") int pcapPort,
+                        @Value("${drone-delivery.replay.exit:false}") boolean exitWhenDone) {
+        this.context = context;
+        this.file = Path.of(file);
+        this.pcapPort = pcapPort;
+        this.exitWhenDone = exitWhenDone;
+        this.options = ReplayOptions.builder()
+                .targetHost(targetHost)
+                .basePort(basePort)
+                .portCount(portCount)
+                .drones(drones)
+                .speed(speed)
+                .loops(loops)
+                .build();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<ReplayRecord> records = MavlinkReplayer.load(file, pcapPort);
+        log.info("Replaying {} datagrams from {} as {} drone(s) on {}:{}-{} at {}",
+                records.size(), file, options.getDrones(), options.getTargetHost(), options.getBasePort(),
+                options.getBasePort() + options.getPortCount() - 1,
+                options.getSpeed() <= 0 ? "max speed" : options.getSpeed() + "x");
+        Thread.ofPlatform().name("mavlink-replay").start(() -> {
+            try {
+                new MavlinkReplayer(records, options).run();
+            } catch (Exception e) {
+                log.error("Replay failed: {}", e.getMessage(), e);
+            }
+            if (exitWhenDone) {
+                System.exit(SpringApplication.exit(context));
+            }
+        });
+    }
+}
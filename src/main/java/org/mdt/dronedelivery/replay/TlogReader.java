@@ -0,0 +1,56 @@
+package org.mdt.dronedelivery.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Mission Planner / MAVProxy telemetry logs: each frame is preceded by a big-endian u64
+// capture time in microseconds since the epoch. Each frame becomes one record.
+public final class TlogReader {
+
+    private static final int MAGIC_V1 = 0xFE;
+    private static final int MAGIC_V2 = 0xFD;
+
+    private TlogReader() {
+    }
+
+    public static List<ReplayRecord> read(Path path) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.BIG_ENDIAN);
+        List<ReplayRecord> records = new ArrayList<>();
+        while (in.remaining() > Long.BYTES + 2) {
+            int start = in.position();
+            long timestamp = in.getLong();
+            int magic = in.get(in.position()) & 0xFF;
+            int length = frameLength(in, in.position(), magic);
+            if (length < 0 || length > in.remaining()) {
+                // Not aligned on a record; resynchronise one byte further on
+                in.position(start + 1);
+                continue;
+            }
+            int from = in.position();
+            records.add(new ReplayRecord(timestamp, Arrays.copyOfRange(in.array(), from, from + length)));
+            in.position(from + length);
+        }
+        return records;
+    }
+
+    static int frameLength(ByteBuffer buffer, int start, int magic) {
+        if (buffer.limit() - start < 3) {
+            return -1;
+        }
+        int payloadLength = buffer.get(start + 1) & 0xFF;
+        if (magic == MAGIC_V1) {
+            return 6 + payloadLength + 2;
+        }
+        if (magic == MAGIC_V2) {
+            boolean signed = (buffer.get(start + 2) & 0x01) != 0;
+            return 10 + payloadLength + 2 + (signed ? 13 : 0);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,202 @@
+package org.mdt.dronedelivery.send;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// telemetry.bin.v1: fixed-order, schema-versioned binary frames with field-level deltas.
+//
+//   u8 version | u8 kind (1 key, 2 delta) | u32 seq | u32 baseSeq | u8 keyLen | key (ASCII)
+//   u64 field mask | zigzag varint per present field | key frames only: u8 ipLen | gcsIp
+//
+// Key frames carry every subscribed field as round(value * scale). Delta frames carry only
+// the fields whose quantized value differs from the frame the client last acknowledged
+// (baseSeq), as the difference from it. Acks are cumulative: {"type":"ack","seq":N}.
+// One message carries every drone that changed in a tick, as frames laid back to back.
+//
+// Sequence numbers are shared by all drones of the session, but each drone keeps its own ring
+// of its last PENDING unacknowledged frames. If an ack arrives after the drone's newest frame up
+// to that seq has been pushed out of the ring, its values are unknown here, so the drone falls
+// back to a key frame rather than diffing against a baseline the client may have dropped.
+final class BinaryDeltaCodec implements FrameCodec {
+
+    static final String SUBPROTOCOL = "telemetry.bin.v1";
+    static final TextMessage SCHEMA = schemaMessage();
+
+    private static final int VERSION = 1;
+    private static final int KIND_KEY = 1;
+    private static final int KIND_DELTA = 2;
+    private static final int PENDING = 8;
+    // version, kind, seq, baseSeq, key, mask, one 10-byte varint per field, gcsIp
+    private static final int MAX_FRAME_BYTES = 2 + 8 + 256 + 8 + 10 * TelemetryField.COUNT + 256;
+
+    private final TelemetrySubscription subscription;
+    private final Map<String, Baseline> baselines = new HashMap<>();
+    private ByteBuffer out = ByteBuffer.allocate(4 * MAX_FRAME_BYTES);
+    private int nextSeq = 1;
+    private int groupMask = -1;
+    private long fieldMask;
+
+    BinaryDeltaCodec(TelemetrySubscription subscription) {
+        this.subscription = subscription;
+    }
+
+    @Override
+    public synchronized WebSocketMessage<?> encode(Collection<TelemetryFrame> batch) {
+        if (groupMask != subscription.groupMask()) {
+            // Newly subscribed fields have no acknowledged value yet: restart from key frames
+            groupMask = subscription.groupMask();
+            fieldMask = TelemetryField.fieldMask(groupMask);
+            baselines.clear();
+        }
+        out.clear();
+        for (TelemetryFrame frame : batch) {
+            if (out.remaining() < MAX_FRAME_BYTES) {
+                out = ByteBuffer.allocate(out.capacity() * 2).put(out.flip());
+            }
+            write(frame);
+        }
+        return out.position() == 0 ? null : new BinaryMessage(Arrays.copyOf(out.array(), out.position()));
+    }
+
+    private void write(TelemetryFrame frame) {
+        Baseline baseline = baselines.computeIfAbsent(frame.getKey(), k -> new Baseline());
+        int seq = nextSeq++;
+        Pending pending = baseline.next(seq, frame.getGcsIp());
+        quantize(frame.getValues(), pending.values);
+
+        boolean keyFrame = baseline.ackedSeq == 0 || !Objects.equals(baseline.ackedGcsIp, frame.getGcsIp());
+        out.put((byte) VERSION);
+        out.put((byte) (keyFrame ? KIND_KEY : KIND_DELTA));
+        out.putInt(seq);
+        out.putInt(keyFrame ? 0 : baseline.ackedSeq);
+        writeAscii(frame.getKey());
+
+        long mask = 0;
+        int maskPosition = out.position();
+        out.putLong(0);
+        for (int i = 0; i < TelemetryField.COUNT; i++) {
+            if ((fieldMask & (1L << i)) == 0) {
+                continue;
+            }
+            long value = pending.values[i];
+            if (keyFrame) {
+                mask |= 1L << i;
+                writeVarLong(value);
+            } else if (value != baseline.acked[i]) {
+                mask |= 1L << i;
+                writeVarLong(value - baseline.acked[i]);
+            }
+        }
+        out.putLong(maskPosition, mask);
+        if (keyFrame) {
+            writeAscii(frame.getGcsIp() == null ? "" : frame.getGcsIp());
+        }
+    }
+
+    @Override
+    public synchronized void acknowledge(int seq) {
+        for (Baseline baseline : baselines.values()) {
+            baseline.acknowledge(seq);
+        }
+    }
+
+    private static void quantize(double[] values, long[] target) {
+        for (int i = 0; i < TelemetryField.COUNT; i++) {
+            target[i] = Math.round(values[i] * TelemetryField.VALUES[i].scale());
+        }
+    }
+
+    private void writeVarLong(long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.put((byte) zigzag);
+    }
+
+    private void writeAscii(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        int length = Math.min(bytes.length, 255);
+        out.put((byte) length);
+        out.put(bytes, 0, length);
+    }
+
+    // Sent once when a binary session opens so clients can map mask bits to names
+    private static TextMessage schemaMessage() {
+        StringBuilder json = new StringBuilder("{\"schema\":{\"protocol\":\"" + SUBPROTOCOL + "\",\"fields\":[");
+        for (TelemetryField field : TelemetryField.VALUES) {
+            if (field.ordinal() > 0) {
+                json.append(',');
+            }
+            json.append("{\"name\":\"").append(field.jsonName())
+                    .append("\",\"scale\":").append(field.scale()).append('}');
+        }
+        return new TextMessage(json.append("]}}").toString());
+    }
+
+    private static final class Pending {
+        private int seq;
+        private String gcsIp;
+        private final long[] values = new long[TelemetryField.COUNT];
+    }
+
+    // Per-drone state: the last acknowledged values plus a ring of frames awaiting an ack
+    private static final class Baseline {
+
+        private final long[] acked = new long[TelemetryField.COUNT];
+        private int ackedSeq;
+        private String ackedGcsIp;
+        private final Pending[] pending = new Pending[PENDING];
+        private int cursor;
+        // Oldest frame newer than ackedSeq that was overwritten before being acked, 0 if none
+        private int firstEvictedSeq;
+
+        private Baseline() {
+            for (int i = 0; i < PENDING; i++) {
+                pending[i] = new Pending();
+            }
+        }
+
+        Pending next(int seq, String gcsIp) {
+            Pending slot = pending[cursor];
+            cursor = (cursor + 1) % PENDING;
+            if (slot.seq > ackedSeq && firstEvictedSeq == 0) {
+                firstEvictedSeq = slot.seq;
+            }
+            slot.seq = seq;
+            slot.gcsIp = gcsIp;
+            return slot;
+        }
+
+        void acknowledge(int seq) {
+            Pending newest = null;
+            for (Pending slot : pending) {
+                if (slot.seq > ackedSeq && slot.seq <= seq && (newest == null || slot.seq > newest.seq)) {
+                    newest = slot;
+                }
+            }
+            // Evicted frames are all older than the ones still in the ring
+            if (newest != null) {
+                System.arraycopy(newest.values, 0, acked, 0, acked.length);
+                ackedSeq = newest.seq;
+                ackedGcsIp = newest.gcsIp;
+                firstEvictedSeq = 0;
+            } else if (firstEvictedSeq != 0 && firstEvictedSeq <= seq) {
+                // The client moved past a frame that is gone: next frame is a key frame
+                ackedSeq = 0;
+                ackedGcsIp = null;
+                firstEvictedSeq = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.mdt.dronedelivery.send;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.mdt.dronedelivery.metrics.LatencyTimers;
+
+import java.util.concurrent.TimeUnit;
+
+// Meters shared by every SessionOutbound: drops, and with metrics.latency on, time frames wait in
+// a session queue, time in sendMessage, and end-to-end latency from UDP receive to the WebSocket write
+final class DeliveryMetrics {
+
+    private final Counter droppedFrames;
+    private final boolean timed;
+    // null when not timed
+    private final Timer queueLatency;
+    private final Timer sendLatency;
+    private final Timer endToEndLatency;
+
+    DeliveryMetrics(MeterRegistry meterRegistry, OverflowPolicy overflowPolicy, boolean latencyEnabled) {
+        this.droppedFrames = Counter.builder("telemetry.ws.frames.dropped")
+                .tag("policy", overflowPolicy.name().toLowerCase())
+                .register(meterRegistry);
+        this.timed = latencyEnabled;
+        if (!latencyEnabled) {
+            this.queueLatency = null;
+            this.sendLatency = null;
+            this.endToEndLatency = null;
+            return;
+        }
+        this.queueLatency = LatencyTimers.latencyTimer("telemetry.publish.latency", "queue")
+                .description("Time a frame waits in a session queue")
+                .register(meterRegistry);
+        this.sendLatency = LatencyTimers.latencyTimer("telemetry.ws.send.latency")
+                .description("Time spent in WebSocketSession.sendMessage")
+                .register(meterRegistry);
+        this.endToEndLatency = LatencyTimers.latencyTimer("telemetry.end-to-end.latency")
+                .description("UDP receive to WebSocket write of the oldest change in a frame")
+                .register(meterRegistry);
+    }
+
+    // Callers skip their System.nanoTime() reads when false
+    boolean timed() {
+        return timed;
+    }
+
+    void dropped() {
+        droppedFrames.increment();
+    }
+
+    void dropped(int frames) {
+        droppedFrames.increment(frames);
+    }
+
+    void queued(long nanos) {
+        queueLatency.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void sent(long nanos) {
+        sendLatency.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void delivered(TelemetryFrame frame, long nowNanos) {
+        if (frame.getReceivedNanos() != 0) {
+            endToEndLatency.record(nowNanos - frame.getReceivedNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.mdt.dronedelivery.send;
+
+import java.util.Locale;
+
+// Slices of a drone frame a client can subscribe to. port, systemId, componentId and gcsIp are always sent.
+public enum FieldGroup {
+
+    POSITION,
+    ATTITUDE,
+    BATTERY,
+    MISSION,
+    SERVO,
+    // Armed flag and flight mode from the vehicle's heartbeat
+    STATUS;
+
+    // TelemetryWebSocketService.jsonGroupMasks keeps one bit per mask in a long: at most six groups
+    public static final int ALL = (1 << values().length) - 1;
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public boolean in(int groupMask) {
+        return (groupMask & bit()) != 0;
+    }
+
+    public static FieldGroup from(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,50 @@
+package org.mdt.dronedelivery.send;
+
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+// Per-session wire encoding, chosen from the negotiated subprotocol
+interface FrameCodec {
+
+    // One message for a tick's telemetry frames; null when none of them applies to this session
+    WebSocketMessage<?> encode(Collection<TelemetryFrame> batch);
+
+    default void acknowledge(int seq) {
+    }
+
+    // {"telemetry_data": {"<key>": {...}, "<key>": {...}}} spliced from the entries encoded once per tick
+    static FrameCodec json(TelemetrySubscription subscription) {
+        byte[] open = "{\"telemetry_data\":{".getBytes(StandardCharsets.US_ASCII);
+        return batch -> {
+            int groupMask = subscription.groupMask();
+            int length = open.length + 2;
+            for (TelemetryFrame frame : batch) {
+                byte[] entry = frame.jsonEntry(groupMask);
+                length += entry == null ? 0 : entry.length + 1;
+            }
+            if (length == open.length + 2) {
+                return null;
+            }
+            byte[] json = new byte[length - 1];
+            System.arraycopy(open, 0, json, 0, open.length);
+            int position = open.length;
+            for (TelemetryFrame frame : batch) {
+                byte[] entry = frame.jsonEntry(groupMask);
+                if (entry == null) {
+                    continue;
+                }
+                if (position > open.length) {
+                    json[position++] = ',';
+                }
+                System.arraycopy(entry, 0, json, position, entry.length);
+                position += entry.length;
+            }
+            json[position++] = '}';
+            json[position] = '}';
+            return new TextMessage(json);
+        };
+    }
+}
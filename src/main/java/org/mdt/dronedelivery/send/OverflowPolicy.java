@@ -0,0 +1,18 @@
+package org.mdt.dronedelivery.send;
+
+import java.util.Locale;
+
+// What a session's outbound queue does when the client cannot keep up
+public enum OverflowPolicy {
+
+    // Evict the oldest queued frame to make room
+    DROP_OLDEST,
+    // Replace a queued frame for the same drone in place; evict the oldest otherwise
+    KEEP_LATEST,
+    // Close the session; the client reconnects and starts from a fresh snapshot
+    DISCONNECT;
+
+    public static OverflowPolicy from(String value) {
+        return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+}
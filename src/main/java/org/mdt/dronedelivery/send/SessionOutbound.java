@@ -0,0 +1,257 @@
+package org.mdt.dronedelivery.send;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.mdt.dronedelivery.logging.RateLimitedLogger;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+// Bounded outbound queue for one WebSocket session. Producers never block; a single
+// writer task drains the queue so sendMessage is never called concurrently on a session.
+// Telemetry arrives as one batch per tick and leaves as one message; under keep-latest a
+// batch still waiting in the queue absorbs the next one, newer frames replacing older ones.
+@Slf4j
+class SessionOutbound {
+
+    private static final RateLimitedLogger SEND_ERRORS = new RateLimitedLogger(log, 10, TimeUnit.SECONDS);
+
+    @Getter
+    private final WebSocketSession session;
+    @Getter
+    private final TelemetrySubscription subscription;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final FrameCodec codec;
+    private final Executor writerExecutor;
+    private final DeliveryMetrics metrics;
+
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final Map<String, Pending> pendingByKey = new HashMap<>();
+    // The queued telemetry batch later batches merge into, under keep-latest
+    private Pending pendingBatch;
+    private boolean writing;
+    private volatile boolean closed;
+
+    SessionOutbound(WebSocketSession session, TelemetrySubscription subscription, int capacity,
+                    OverflowPolicy overflowPolicy, FrameCodec codec,
+                    Executor writerExecutor, DeliveryMetrics metrics) {
+        this.session = session;
+        this.subscription = subscription;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.codec = codec;
+        this.writerExecutor = writerExecutor;
+        this.metrics = metrics;
+    }
+
+    // Event frames; the frame key identifies what the event is about, null keys are never coalesced
+    void offer(TelemetryFrame frame) {
+        String key = frame.getKey();
+        if (closed || !subscription.matches(frame)) {
+            return;
+        }
+        boolean startWriter;
+        synchronized (this) {
+            if (overflowPolicy == OverflowPolicy.KEEP_LATEST && key != null) {
+                Pending queued = pendingByKey.get(key);
+                if (queued != null) {
+                    queued.frame = frame;
+                    metrics.dropped();
+                    return;
+                }
+            }
+            Pending pending = new Pending(key, frame, null, metrics.timed() ? System.nanoTime() : 0);
+            if (!enqueue(pending)) {
+                return;
+            }
+            if (key != null && overflowPolicy == OverflowPolicy.KEEP_LATEST) {
+                pendingByKey.put(key, pending);
+            }
+            startWriter = startWriter();
+        }
+        if (startWriter) {
+            writerExecutor.execute(this::drain);
+        }
+    }
+
+    // One tick's telemetry frames, each keyed by drone
+    void offerBatch(List<TelemetryFrame> frames) {
+        if (closed) {
+            return;
+        }
+        Map<String, TelemetryFrame> batch = new LinkedHashMap<>();
+        for (TelemetryFrame frame : frames) {
+            if (subscription.matches(frame)) {
+                batch.put(frame.getKey(), frame);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        boolean startWriter;
+        synchronized (this) {
+            if (pendingBatch != null) {
+                for (TelemetryFrame frame : batch.values()) {
+                    if (pendingBatch.batch.put(frame.getKey(), frame) != null) {
+                        metrics.dropped();
+                    }
+                }
+                return;
+            }
+            Pending pending = new Pending(null, null, batch, metrics.timed() ? System.nanoTime() : 0);
+            if (!enqueue(pending)) {
+                return;
+            }
+            if (overflowPolicy == OverflowPolicy.KEEP_LATEST) {
+                pendingBatch = pending;
+            }
+            startWriter = startWriter();
+        }
+        if (startWriter) {
+            writerExecutor.execute(this::drain);
+        }
+    }
+
+    // Makes room per the overflow policy; false when the session is being disconnected
+    private boolean enqueue(Pending pending) {
+        if (queue.size() >= capacity) {
+            if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                metrics.dropped(queue.size() + 1);
+                queue.clear();
+                pendingByKey.clear();
+                pendingBatch = null;
+                closed = true;
+                writerExecutor.execute(this::disconnect);
+                return false;
+            }
+            Pending oldest = queue.poll();
+            forget(oldest);
+            metrics.dropped();
+        }
+        queue.add(pending);
+        return true;
+    }
+
+    private void forget(Pending pending) {
+        if (pending == null) {
+            return;
+        }
+        if (pending.key != null) {
+            pendingByKey.remove(pending.key, pending);
+        }
+        if (pending == pendingBatch) {
+            pendingBatch = null;
+        }
+    }
+
+    private boolean startWriter() {
+        boolean start = !writing;
+        writing = true;
+        return start;
+    }
+
+    void acknowledge(int seq) {
+        codec.acknowledge(seq);
+    }
+
+    boolean isBinary() {
+        return codec instanceof BinaryDeltaCodec;
+    }
+
+    synchronized int depth() {
+        return queue.size();
+    }
+
+    void close() {
+        closed = true;
+        synchronized (this) {
+            queue.clear();
+            pendingByKey.clear();
+            pendingBatch = null;
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Pending next;
+            synchronized (this) {
+                next = queue.poll();
+                if (next == null) {
+                    writing = false;
+                    return;
+                }
+                forget(next);
+            }
+            if (closed || !session.isOpen()) {
+                continue;
+            }
+            boolean timed = metrics.timed();
+            if (timed) {
+                metrics.queued(System.nanoTime() - next.enqueuedNanos);
+            }
+            WebSocketMessage<?> message;
+            try {
+                message = next.batch != null ? codec.encode(next.batch.values()) : next.frame.getJson();
+            } catch (RuntimeException e) {
+                log.warn("Failed to encode frame for WebSocket {}: {}", session.getId(), e.getMessage());
+                continue;
+            }
+            if (message == null) {
+                continue;
+            }
+            long sendStart = timed ? System.nanoTime() : 0;
+            try {
+                session.sendMessage(message);
+                if (timed) {
+                    long sent = System.nanoTime();
+                    metrics.sent(sent - sendStart);
+                    if (next.batch != null) {
+                        for (TelemetryFrame frame : next.batch.values()) {
+                            metrics.delivered(frame, sent);
+                        }
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                if (timed) {
+                    metrics.sent(System.nanoTime() - sendStart);
+                }
+                SEND_ERRORS.warn("send", "Failed to send to WebSocket {}: {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void disconnect() {
+        log.warn("WebSocket {} fell {} frames behind, disconnecting", session.getId(), capacity);
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.error("Error closing WebSocket {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private static final class Pending {
+
+        private final String key;
+        private final long enqueuedNanos;
+        private TelemetryFrame frame;
+        // Telemetry by drone key, instead of frame
+        private final Map<String, TelemetryFrame> batch;
+
+        private Pending(String key, TelemetryFrame frame, Map<String, TelemetryFrame> batch, long enqueuedNanos) {
+            this.key = key;
+            this.frame = frame;
+            this.batch = batch;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.mdt.dronedelivery.send;
+
+import static org.mdt.dronedelivery.send.FieldGroup.*;
+
+// Numeric telemetry fields in wire order for the binary subprotocol, tagged with their FieldGroup.
+// The ordinal is the bit in the frame's field mask and values travel as round(value * scale),
+// so only append new fields.
+public enum TelemetryField {
+
+    SYSTEM_ID("systemId", 1, null),
+    LATITUDE("latitude", 1e7, POSITION),
+    LONGITUDE("longitude", 1e7, POSITION),
+    ALTITUDE("altitude", 1e3, POSITION),
+    HEADING("heading", 100, POSITION),
+    GROUND_SPEED("groundSpeed", 100, POSITION),
+    VERTICAL_SPEED("verticalSpeed", 100, POSITION),
+    AIRSPEED("airspeed", 100, POSITION),
+    WIND_VELOCITY("windVelocity", 100, POSITION),
+    GPS_HDOP("gpsHdop", 100, POSITION),
+    ROLL("roll", 100, ATTITUDE),
+    PITCH("pitch", 100, ATTITUDE),
+    YAW("yaw", 100, ATTITUDE),
+    BATTERY_VOLTAGE("batteryVoltage", 1e3, BATTERY),
+    BATTERY_CURRENT("batteryCurrent", 100, BATTERY),
+    FLIGHT_STATUS("flightStatus", 1, MISSION),
+    TIME_IN_AIR("timeInAir", 1, MISSION),
+    AUTO_TIME("autoTime", 1, MISSION),
+    THROTTLE_ACTIVE("throttleActive", 1, MISSION),
+    THROTTLE_TIME_IN_AIR("throttleTimeInAir", 1, MISSION),
+    DIST_TRAVELED("distTraveled", 100, POSITION),
+    DIST_TO_HOME("distToHome", 100, POSITION),
+    WP_DIST("wpDist", 100, MISSION),
+    TARGET_HEADING("targetHeading", 100, ATTITUDE),
+    PREVIOUS_HEADING("previousHeading", 100, ATTITUDE),
+    CH3_PERCENT("ch3percent", 100, SERVO),
+    CH3_OUT("ch3out", 1, SERVO),
+    CH9_OUT("ch9out", 1, SERVO),
+    CH10_OUT("ch10out", 1, SERVO),
+    CH11_OUT("ch11out", 1, SERVO),
+    CH12_OUT("ch12out", 1, SERVO),
+    TOT("tot", 100, MISSION),
+    TOH("toh", 100, MISSION),
+    MISSION_VERSION("missionVersion", 1, MISSION),
+    COMPONENT_ID("componentId", 1, null),
+    BATTERY_REMAINING("batteryRemaining", 1, BATTERY),
+    ARMED("armed", 1, STATUS),
+    CUSTOM_MODE("customMode", 1, STATUS),
+    CURRENT_WAYPOINT("currentWaypoint", 1, MISSION);
+
+    public static final TelemetryField[] VALUES = values();
+    public static final int COUNT = VALUES.length;
+
+    private final String jsonName;
+    private final double scale;
+    private final FieldGroup group;
+
+    TelemetryField(String jsonName, double scale, FieldGroup group) {
+        this.jsonName = jsonName;
+        this.scale = scale;
+        this.group = group;
+    }
+
+    // Bits of the fields a session receives for the given FieldGroup mask; identity fields always
+    public static long fieldMask(int groupMask) {
+        long mask = 0;
+        for (TelemetryField field : VALUES) {
+            if (field.group == null || field.group.in(groupMask)) {
+                mask |= 1L << field.ordinal();
+            }
+        }
+        return mask;
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    public double scale() {
+        return scale;
+    }
+
+    public FieldGroup group() {
+        return group;
+    }
+}
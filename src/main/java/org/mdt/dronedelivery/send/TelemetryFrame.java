@@ -0,0 +1,67 @@
+package org.mdt.dronedelivery.send;
+
+import lombok.Getter;
+import org.springframework.web.socket.TextMessage;
+
+// One broadcast unit, shared read-only by every session. Telemetry frames carry the drone's JSON
+// entries encoded this tick (indexed by FieldGroup mask) plus the raw field values (indexed by
+// TelemetryField ordinal) for binary sessions, and travel in per-tick batches that each codec
+// turns into a single message. Event frames (values == null) go out as JSON on every protocol.
+// port 0 means the frame is not about a single drone; group, when set, is the FieldGroup a
+// session must subscribe to for the event. receivedNanos is when the oldest change
+// in the frame arrived over UDP (System.nanoTime), 0 when not measured.
+@Getter
+public final class TelemetryFrame {
+
+    private final String key;
+    private final int port;
+    private final int systemId;
+    private final String gcsIp;
+    private final double[] values;
+    private final TextMessage json;
+    private final FieldGroup group;
+    private final byte[][] jsonByGroupMask;
+    private final long receivedNanos;
+
+    private TelemetryFrame(String key, int port, int systemId, String gcsIp,
+                           double[] values, TextMessage json, FieldGroup group, byte[][] jsonByGroupMask,
+                           long receivedNanos) {
+        this.key = key;
+        this.port = port;
+        this.systemId = systemId;
+        this.gcsIp = gcsIp;
+        this.values = values;
+        this.json = json;
+        this.group = group;
+        this.jsonByGroupMask = jsonByGroupMask;
+        this.receivedNanos = receivedNanos;
+    }
+
+    public static TelemetryFrame telemetry(String key, int port, int systemId, String gcsIp,
+                                           double[] values, byte[][] jsonByGroupMask, long receivedNanos) {
+        return new TelemetryFrame(key, port, systemId, gcsIp, values, null, null, jsonByGroupMask, receivedNanos);
+    }
+
+    public static TelemetryFrame event(String key, int port, int systemId, FieldGroup group, TextMessage json) {
+        return new TelemetryFrame(key, port, systemId, null, null, json, group, null, 0);
+    }
+
+    public static TelemetryFrame event(String key, int port, int systemId, TextMessage json) {
+        return event(key, port, systemId, null, json);
+    }
+
+    public static TelemetryFrame event(String key, TextMessage json) {
+        return event(key, 0, 0, json);
+    }
+
+    public boolean isTelemetry() {
+        return values != null;
+    }
+
+    // The drone's "key":{...} entry in a telemetry_data object for a session subscribed to the
+    // given FieldGroup mask; null if that slice was not encoded this tick (the subscription
+    // changed mid-tick), in which case the frame is skipped
+    byte[] jsonEntry(int groupMask) {
+        return jsonByGroupMask[groupMask];
+    }
+}
@@ -0,0 +1,78 @@
+package org.mdt.dronedelivery.send;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// What one session wants to see. A session starts out watching every drone; naming ports or
+// system ids narrows it to those, and unsubscribing the last of them leaves nothing until the
+// client subscribes again or asks for everything with "all". Groups default to all of them
+// until the client names some.
+//
+//   {"type":"subscribe",   "ports":[14550], "systemIds":[3], "groups":["position","battery"]}
+//   {"type":"unsubscribe", "ports":[14550], "groups":["servo"]}
+//   {"type":"subscribe",   "all":true}
+final class TelemetrySubscription {
+
+    private final Set<Integer> ports = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> systemIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean all = true;
+    private volatile int groupMask = FieldGroup.ALL;
+    private boolean customGroups;
+
+    boolean matches(TelemetryFrame frame) {
+        FieldGroup group = frame.getGroup();
+        return (group == null || group.in(groupMask)) && matches(frame.getPort(), frame.getSystemId());
+    }
+
+    boolean matches(int port, int systemId) {
+        if (port == 0 || all) {
+            return true;
+        }
+        return ports.contains(port) || systemIds.contains(systemId);
+    }
+
+    int groupMask() {
+        return groupMask;
+    }
+
+    synchronized void subscribe(JsonNode command) {
+        if (command.path("all").asBoolean(false)) {
+            ports.clear();
+            systemIds.clear();
+            all = true;
+            groupMask = FieldGroup.ALL;
+            customGroups = false;
+            return;
+        }
+        if (!command.path("ports").isEmpty() || !command.path("systemIds").isEmpty()) {
+            command.path("ports").forEach(port -> ports.add(port.asInt()));
+            command.path("systemIds").forEach(id -> systemIds.add(id.asInt()));
+            all = false;
+        }
+        int bits = groupBits(command);
+        if (bits != 0) {
+            groupMask = customGroups ? groupMask | bits : bits;
+            customGroups = true;
+        }
+    }
+
+    synchronized void unsubscribe(JsonNode command) {
+        command.path("ports").forEach(port -> ports.remove(port.asInt()));
+        command.path("systemIds").forEach(id -> systemIds.remove(id.asInt()));
+        int bits = groupBits(command);
+        if (bits != 0) {
+            groupMask &= ~bits;
+            customGroups = true;
+        }
+    }
+
+    private static int groupBits(JsonNode command) {
+        int bits = 0;
+        for (JsonNode group : command.path("groups")) {
+            bits |= FieldGroup.from(group.asText()).bit();
+        }
+        return bits;
+    }
+}
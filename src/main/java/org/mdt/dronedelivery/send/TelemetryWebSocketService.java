@@ -1,7 +1,13 @@
 package org.mdt.dronedelivery.send;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
@@ -9,39 +15,177 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 @Slf4j
-public class TelemetryWebSocketService extends TextWebSocketHandler {
+public class TelemetryWebSocketService extends TextWebSocketHandler implements SubProtocolCapable {
 
-    private final List<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
+    // JSON stays the default when the client asks for no subprotocol
+    static final String JSON_SUBPROTOCOL = "telemetry.json";
+
+    private final Map<String, SessionOutbound> sessions = new ConcurrentHashMap<>();
+    private final Map<String, TelemetryFrame> retainedFrames = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService writerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final DeliveryMetrics deliveryMetrics;
+    private final AtomicBoolean refreshRequested = new AtomicBoolean();
+
+    public TelemetryWebSocketService(@Value("${drone-delivery.websocket.queue-capacity:256}") int queueCapacity,
+                                     @Value("${drone-delivery.websocket.overflow-policy:keep-latest}") String overflowPolicy,
+                                     @Value("${drone-delivery.metrics.latency:true}") boolean latencyEnabled,
+                                     MeterRegistry meterRegistry) {
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = OverflowPolicy.from(overflowPolicy);
+        this.deliveryMetrics = new DeliveryMetrics(meterRegistry, this.overflowPolicy, latencyEnabled);
+        Gauge.builder("telemetry.ws.sessions", sessions, Map::size).register(meterRegistry);
+        Gauge.builder("telemetry.ws.queue.depth", this, TelemetryWebSocketService::totalQueueDepth)
+                .description("Frames queued across all sessions")
+                .register(meterRegistry);
+        Gauge.builder("telemetry.ws.queue.depth.max", this, TelemetryWebSocketService::maxQueueDepth)
+                .description("Deepest single session queue")
+                .register(meterRegistry);
+    }
 
     @Override
-    public void afterConnectionEstablished(WebSocketSession session) {
-        sessions.add(session);
-        log.info("WebSocket connected: {}", session.getId());
+    public List<String> getSubProtocols() {
+        return List.of(JSON_SUBPROTOCOL, BinaryDeltaCodec.SUBPROTOCOL);
     }
 
     @Override
-    public void afterConnectionClosed(WebSocketSession session, org.springframework.web.socket.CloseStatus status) {
-        sessions.remove(session);
-        log.info("WebSocket disconnected: {}", session.getId());
+    public void afterConnectionEstablished(WebSocketSession session) {
+        boolean binary = BinaryDeltaCodec.SUBPROTOCOL.equals(session.getAcceptedProtocol());
+        TelemetrySubscription subscription = new TelemetrySubscription();
+        SessionOutbound outbound = new SessionOutbound(session, subscription, queueCapacity, overflowPolicy,
+                binary ? new BinaryDeltaCodec(subscription) : FrameCodec.json(subscription),
+                writerExecutor, deliveryMetrics);
+        sessions.put(session.getId(), outbound);
+        refreshRequested.set(true);
+        if (binary) {
+            outbound.offer(TelemetryFrame.event(null, BinaryDeltaCodec.SCHEMA));
+        }
+        retainedFrames.values().forEach(outbound::offer);
+        log.info("WebSocket connected: {} ({})", session.getId(), binary ? BinaryDeltaCodec.SUBPROTOCOL : "json");
     }
 
-    public void sendTelemetryData(Map<String, Object> telemetryData) {
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        SessionOutbound outbound = sessions.get(session.getId());
+        if (outbound == null) {
+            return;
+        }
         try {
-            String jsonData = objectMapper.writeValueAsString(telemetryData);
-            for (WebSocketSession session : sessions) {
-                if (session.isOpen()) {
-                    session.sendMessage(new TextMessage(jsonData));
+            JsonNode command = objectMapper.readTree(message.getPayload());
+            switch (command.path("type").asText()) {
+                case "ack" -> outbound.acknowledge(command.path("seq").asInt());
+                case "subscribe" -> {
+                    // Retained frames the session already had stay unsent
+                    TelemetrySubscription subscription = outbound.getSubscription();
+                    List<TelemetryFrame> unseen = retainedFrames.values().stream()
+                            .filter(frame -> !subscription.matches(frame))
+                            .toList();
+                    subscription.subscribe(command);
+                    unseen.forEach(outbound::offer);
+                    refreshRequested.set(true);
                 }
+                case "unsubscribe" -> outbound.getSubscription().unsubscribe(command);
+                default -> log.debug("Unknown command from WebSocket {}: {}", session.getId(), command);
             }
         } catch (Exception e) {
-            log.error("Error sending telemetry data via WebSocket", e);
+            log.debug("Ignoring malformed message from WebSocket {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, org.springframework.web.socket.CloseStatus status) {
+        SessionOutbound outbound = sessions.remove(session.getId());
+        if (outbound != null) {
+            outbound.close();
         }
+        log.info("WebSocket disconnected: {}", session.getId());
     }
 
+    @PreDestroy
+    public void shutdown() {
+        sessions.values().forEach(SessionOutbound::close);
+        writerExecutor.shutdownNow();
+    }
 
+    // Pre-encoded frame shared as-is by every session
+    public void broadcast(TelemetryFrame frame) {
+        for (SessionOutbound outbound : sessions.values()) {
+            outbound.offer(frame);
+        }
+    }
+
+    // One tick's telemetry frames; each session sends the ones it subscribes to as a single message
+    public void broadcast(List<TelemetryFrame> frames) {
+        if (frames.isEmpty()) {
+            return;
+        }
+        for (SessionOutbound outbound : sessions.values()) {
+            outbound.offerBatch(frames);
+        }
+    }
+
+    // Broadcast now and replayed to every session that connects or subscribes later; a frame
+    // with the same key replaces the previous one
+    public void publishRetained(TelemetryFrame frame) {
+        retainedFrames.put(frame.getKey(), frame);
+        broadcast(frame);
+    }
+
+    // What the retained frame described is gone; sessions that connect later do not hear of it
+    public void dropRetained(String key) {
+        retainedFrames.remove(key);
+    }
+
+    // Bit m is set when some JSON session subscribes to FieldGroup mask m; the broadcaster
+    // encodes exactly those slices. Masks fit in a long while there are at most six groups.
+    public long jsonGroupMasks() {
+        long masks = 0;
+        for (SessionOutbound outbound : sessions.values()) {
+            if (!outbound.isBinary()) {
+                masks |= 1L << outbound.getSubscription().groupMask();
+            }
+        }
+        return masks;
+    }
+
+    // Whether any session would receive frames for this drone
+    public boolean isWatched(int port, int systemId) {
+        for (SessionOutbound outbound : sessions.values()) {
+            if (outbound.getSubscription().matches(port, systemId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A client connected or widened its subscription and needs current state for drones
+    // that may not change again soon; the broadcaster answers with a full pass
+    public boolean consumeRefreshRequest() {
+        return refreshRequested.getAndSet(false);
+    }
+
+    private double totalQueueDepth() {
+        int total = 0;
+        for (SessionOutbound outbound : sessions.values()) {
+            total += outbound.depth();
+        }
+        return total;
+    }
+
+    private double maxQueueDepth() {
+        int max = 0;
+        for (SessionOutbound outbound : sessions.values()) {
+            max = Math.max(max, outbound.depth());
+        }
+        return max;
+    }
 }
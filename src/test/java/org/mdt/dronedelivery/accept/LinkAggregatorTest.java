@@ -0,0 +1,160 @@
+package org.mdt.dronedelivery.accept;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mdt.dronedelivery.link.LinkMonitor;
+import org.mdt.dronedelivery.process.DroneState;
+import org.mdt.dronedelivery.process.DroneStateRegistry;
+import org.mdt.dronedelivery.send.TelemetryWebSocketService;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class LinkAggregatorTest {
+
+    private static final int HEARTBEAT = 0;
+    private static final int ATTITUDE = 30;
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long SKEW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private MeterRegistry meterRegistry;
+    private DroneStateRegistry registry;
+    private LinkAggregator aggregator;
+    private LinkAggregator.PortView first;
+    private LinkAggregator.PortView second;
+    private InetAddress firstSender;
+    private InetAddress secondSender;
+    private long start;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        LinkMonitor linkMonitor = new LinkMonitor(100, 4, 1_000, 2_000, 3_000, 1_000, 2_000, 3_000,
+                mock(TelemetryWebSocketService.class), meterRegistry);
+        registry = new DroneStateRegistry(16, false, linkMonitor, meterRegistry);
+        // 500ms window, three shared heartbeats to merge, 5s to dissolve
+        aggregator = new LinkAggregator(true, 500, 3, 5_000, registry, linkMonitor, meterRegistry);
+        first = aggregator.forPort(1500);
+        second = aggregator.forPort(1501);
+        firstSender = InetAddress.getByName("10.0.0.1");
+        secondSender = InetAddress.getByName("10.0.0.2");
+        start = System.nanoTime();
+    }
+
+    @Test
+    void mergesAfterConsecutiveSharedHeartbeatsAndRetiresTheOtherState() {
+        registry.acquire(1500, 1, 1);
+        registry.acquire(1501, 1, 1);
+        sharedHeartbeats(0, 2);
+        assertTrue(receive(first, 100, ATTITUDE, 1, SECOND + SECOND / 2));
+        assertTrue(receive(second, 100, ATTITUDE, 1, SECOND + SECOND / 2 + SKEW), "not merged yet");
+        assertEquals(1501, second.port());
+
+        sharedHeartbeats(2, 1);
+        assertEquals(1.0, groups());
+        assertNotNull(registry.get(DroneState.vehicleKey(1500, 1, 1)));
+        assertNull(registry.get(DroneState.vehicleKey(1501, 1, 1)));
+    }
+
+    @Test
+    void anUnmatchedHeartbeatRestartsTheCount() {
+        sharedHeartbeats(0, 2);
+        // Only the second port delivers this one
+        receive(second, 2, HEARTBEAT, 0x2222, 2 * SECOND);
+        sharedHeartbeats(3, 2);
+        assertEquals(0.0, groups());
+        sharedHeartbeats(5, 1);
+        assertEquals(1.0, groups());
+    }
+
+    @Test
+    void dropsLaterCopiesAndSubmitsUnderTheCanonicalPort() {
+        sharedHeartbeats(0, 3);
+        long t = 3 * SECOND;
+        assertTrue(receive(first, 50, ATTITUDE, 7, t));
+        assertFalse(receive(second, 50, ATTITUDE, 7, t + SKEW));
+        // The second link wins this frame and is submitted as the first port
+        assertTrue(receive(second, 51, ATTITUDE, 8, t + 2 * SKEW));
+        assertEquals(1500, second.port());
+        assertFalse(receive(first, 51, ATTITUDE, 8, t + 3 * SKEW));
+    }
+
+    @Test
+    void failsOverToTheSurvivingLinkWithoutSplittingTheVehicle() {
+        sharedHeartbeats(0, 3);
+        long t = 3 * SECOND;
+        int seq = 10;
+        for (; t < 5 * SECOND; t += SECOND / 10, seq++) {
+            receive(first, seq, ATTITUDE, seq, t);
+            receive(second, seq, ATTITUDE, seq, t + SKEW);
+        }
+        assertEquals(firstSender, first.sender());
+        // The first link dies; the second keeps the vehicle going past dissolve-ms
+        for (; t < 12 * SECOND; t += SECOND / 10, seq++) {
+            receive(second, seq, seq % 10 == 0 ? HEARTBEAT : ATTITUDE, seq, t);
+            assertEquals(1500, second.port());
+        }
+        assertEquals(secondSender, second.sender());
+        assertEquals(1.0, meterRegistry.get("link.aggregate.failovers").counter().count());
+        assertEquals(1.0, groups());
+    }
+
+    @Test
+    void dissolvesWhenBothLinksStopSharingHeartbeats() {
+        sharedHeartbeats(0, 3);
+        long t = 3 * SECOND;
+        for (int seq = 10; t < 10 * SECOND; t += SECOND, seq++) {
+            receive(first, seq, HEARTBEAT, 0x1000 + seq, t);
+            receive(second, seq, HEARTBEAT, 0x2000 + seq, t + SKEW);
+        }
+        assertEquals(0.0, groups());
+        assertTrue(receive(second, 100, ATTITUDE, 1, t));
+        assertEquals(1501, second.port());
+    }
+
+    @Test
+    void releasingAPortDissolvesItsGroup() {
+        sharedHeartbeats(0, 3);
+        aggregator.releasePort(1501);
+        assertEquals(0.0, groups());
+        long t = 3 * SECOND;
+        assertTrue(receive(first, 60, ATTITUDE, 9, t));
+        assertTrue(receive(second, 60, ATTITUDE, 9, t + SKEW));
+        assertEquals(1501, second.port());
+    }
+
+    // One heartbeat a second, delivered on the first port and then on the second
+    private void sharedHeartbeats(int from, int count) {
+        for (int seq = from; seq < from + count; seq++) {
+            receive(first, seq, HEARTBEAT, 0x1111 * (seq + 1), seq * SECOND);
+            receive(second, seq, HEARTBEAT, 0x1111 * (seq + 1), seq * SECOND + SKEW);
+        }
+    }
+
+    private boolean receive(LinkAggregator.PortView view, int seq, int messageId, int checksum, long offsetNanos) {
+        InetAddress sender = view == first ? firstSender : secondSender;
+        return view.accept(frame(seq, messageId, checksum), sender, start + offsetNanos);
+    }
+
+    private double groups() {
+        return meterRegistry.get("link.aggregate.groups").gauge().value();
+    }
+
+    private static MavlinkFrame frame(int seq, int messageId, int checksum) {
+        byte[] header = {(byte) MavlinkFrame.MAGIC_V2, 9, 0, 0, (byte) seq, 1, 1, (byte) messageId, 0, 0};
+        MavlinkFrame frame = new MavlinkFrame();
+        frame.readHeader(ByteBuffer.wrap(header), 0);
+        frame.setChecksum(checksum & 0xFFFF);
+        return frame;
+    }
+}
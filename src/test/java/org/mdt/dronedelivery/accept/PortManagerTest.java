@@ -0,0 +1,81 @@
+package org.mdt.dronedelivery.accept;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PortManagerTest {
+
+    @Test
+    void updateAppliesBothListsAsOneVersion() {
+        PortManager manager = new PortManager(10, 1000, 2000);
+        manager.update(List.of(1500, 1501, 1502), List.of());
+        long version = manager.update(List.of(1503), List.of(1500));
+        assertEquals(2, version);
+        assertEquals(List.of(1501, 1502, 1503), manager.getPortsToScan());
+
+        List<String> changes = new ArrayList<>();
+        assertEquals(2, manager.changesSince(1, (port, added) -> changes.add((added ? "+" : "-") + port)));
+        assertEquals(List.of("-1500", "+1503"), changes);
+    }
+
+    @Test
+    void partlyEvictedVersionForcesResync() {
+        PortManager manager = new PortManager(65535, 1, 65535);
+        List<Integer> ports = new ArrayList<>();
+        for (int port = 1; port <= 40000; port++) {
+            ports.add(port);
+        }
+        manager.update(ports, List.of());
+        // 80000 entries: the oldest of version 1 fall out of the log
+        manager.update(List.of(), ports);
+
+        AtomicInteger replayed = new AtomicInteger();
+        assertEquals(-1, manager.changesSince(0, (port, added) -> replayed.incrementAndGet()));
+        assertEquals(0, replayed.get());
+        assertEquals(2, manager.changesSince(1, (port, added) -> replayed.incrementAndGet()));
+        assertEquals(40000, replayed.get());
+    }
+
+    @Test
+    void updateIsAllOrNothing() {
+        PortManager manager = new PortManager(3, 1000, 2000);
+        manager.update(List.of(1500, 1501), List.of());
+        assertThrows(IllegalArgumentException.class, () -> manager.update(List.of(1502, 1503), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> manager.update(List.of(1502), List.of(999)));
+        assertEquals(List.of(1500, 1501), manager.getPortsToScan());
+        assertEquals(1, manager.version());
+    }
+
+    @Test
+    void repeatedPortsCountOnceTowardTheLimit() {
+        PortManager manager = new PortManager(3, 1000, 2000);
+        manager.update(List.of(1500, 1501, 1502), List.of());
+        // 1500 stays and 1501 goes: three ports, not five
+        manager.update(List.of(1500, 1500, 1503, 1503), List.of(1500, 1501, 1501));
+        assertEquals(List.of(1500, 1502, 1503), manager.getPortsToScan());
+        assertEquals(3, manager.size());
+    }
+
+    @Test
+    void updateWithoutChangesKeepsTheVersion() {
+        PortManager manager = new PortManager(3, 1000, 2000);
+        manager.update(List.of(1500), List.of());
+        assertEquals(1, manager.update(List.of(1500), List.of(1600)));
+    }
+
+    @Test
+    void listenersRunAfterEveryUpdate() {
+        PortManager manager = new PortManager(3, 1000, 2000);
+        AtomicInteger calls = new AtomicInteger();
+        manager.addChangeListener(calls::incrementAndGet);
+        manager.update(List.of(1500), List.of());
+        manager.update(List.of(1501), List.of());
+        assertEquals(2, calls.get());
+    }
+}
@@ -0,0 +1,48 @@
+package org.mdt.dronedelivery.accept;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class PortsControllerTest {
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Test
+    void postedRangeIsScannedAndApplied() throws InterruptedException {
+        ResponseEntity<Map> response = rest.postForEntity("/ports",
+                Map.of("add", List.of("47100-47102"), "remove", List.of()), Map.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        long version = ((Number) response.getBody().get("version")).longValue();
+        assertTrue(version > 0);
+
+        // The scanner binds the change on its own thread
+        Map<?, ?> status = rest.getForObject("/ports", Map.class);
+        for (int i = 0; i < 100 && ((Number) status.get("appliedVersion")).longValue() < version; i++) {
+            Thread.sleep(50);
+            status = rest.getForObject("/ports", Map.class);
+        }
+        assertEquals(version, ((Number) status.get("appliedVersion")).longValue());
+        assertTrue(((List<?>) status.get("ports")).containsAll(List.of(47100, 47101, 47102)));
+    }
+
+    @Test
+    void rejectsAnUpdateOverTheLimit() {
+        ResponseEntity<Map> response = rest.postForEntity("/ports",
+                Map.of("add", List.of("40000-40200")), Map.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        Map<?, ?> status = rest.getForObject("/ports", Map.class);
+        assertTrue(((List<?>) status.get("ports")).stream().noneMatch(port -> (Integer) port >= 40000));
+    }
+}
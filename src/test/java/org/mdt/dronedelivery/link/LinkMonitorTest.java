@@ -0,0 +1,187 @@
+package org.mdt.dronedelivery.link;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mdt.dronedelivery.send.TelemetryFrame;
+import org.mdt.dronedelivery.send.TelemetryWebSocketService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class LinkMonitorTest {
+
+    private TelemetryWebSocketService webSocket;
+    private MeterRegistry meterRegistry;
+    private LinkMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        webSocket = mock(TelemetryWebSocketService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        // 100ms ticks on a 4-bucket wheel: every threshold is several wheel turns away
+        monitor = new LinkMonitor(100, 4, 1_000, 2_000, 3_000, 1_000, 2_000, 3_000, webSocket, meterRegistry);
+    }
+
+    @Test
+    void expiresOnTheDeadlineTickEvenWhenItIsSeveralWheelTurnsAway() {
+        LinkMonitor.Link link = monitor.vehicle("14550", 14550, 1, 1, () -> { });
+        advance(9);
+        assertEquals(LinkState.ACTIVE, link.getState());
+        advance(1);
+        assertEquals(LinkState.STALE, link.getState());
+        advance(9);
+        assertEquals(LinkState.STALE, link.getState());
+        advance(1);
+        assertEquals(LinkState.LOST, link.getState());
+        assertEquals(1, gauge("vehicle", LinkState.LOST));
+        assertEquals(0, gauge("vehicle", LinkState.ACTIVE));
+    }
+
+    @Test
+    void trafficPushesTheDeadlineBack() {
+        LinkMonitor.Link link = monitor.vehicle("14550", 14550, 1, 1, () -> { });
+        advance(5);
+        link.touch();
+        advance(9);
+        assertEquals(LinkState.ACTIVE, link.getState());
+        advance(1);
+        assertEquals(LinkState.STALE, link.getState());
+    }
+
+    @Test
+    void recoversOnTheNextTickAfterTraffic() {
+        LinkMonitor.Link link = monitor.vehicle("14550", 14550, 1, 1, () -> { });
+        advance(20);
+        assertEquals(LinkState.LOST, link.getState());
+        link.touch();
+        advance(1);
+        assertEquals(LinkState.ACTIVE, link.getState());
+        assertEquals(1, gauge("vehicle", LinkState.ACTIVE));
+        assertEquals(0, gauge("vehicle", LinkState.LOST));
+        // Rescheduled from the new traffic, not from the first packet
+        advance(8);
+        assertEquals(LinkState.ACTIVE, link.getState());
+        advance(1);
+        assertEquals(LinkState.STALE, link.getState());
+    }
+
+    @Test
+    void releasesSilentPortsOnceAndDropsTheirRetainedState() {
+        AtomicInteger released = new AtomicInteger();
+        LinkMonitor.Link link = monitor.port(1500, released::incrementAndGet);
+        advance(29);
+        assertEquals(LinkState.LOST, link.getState());
+        assertEquals(0, released.get());
+        advance(1);
+        assertEquals(LinkState.RELEASED, link.getState());
+        assertEquals(1, released.get());
+        advance(40);
+        assertEquals(1, released.get());
+        assertEquals(0, gauge("port", LinkState.RELEASED));
+        verify(webSocket).dropRetained("link:port:1500");
+    }
+
+    @Test
+    void releasesSilentVehicles() {
+        AtomicInteger released = new AtomicInteger();
+        LinkMonitor.Link link = monitor.vehicle("14550", 14550, 1, 1, released::incrementAndGet);
+        advance(30);
+        assertEquals(LinkState.RELEASED, link.getState());
+        assertEquals(1, released.get());
+        assertEquals(0, gauge("vehicle", LinkState.LOST));
+        verify(webSocket).dropRetained("link:14550");
+    }
+
+    @Test
+    void aFailingReleaseDoesNotStopTheOthers() {
+        AtomicInteger released = new AtomicInteger();
+        monitor.port(1500, () -> {
+            throw new IllegalStateException("boom");
+        });
+        monitor.port(1501, released::incrementAndGet);
+        advance(30);
+        assertEquals(1, released.get());
+    }
+
+    @Test
+    void closedLinksAreDroppedWithoutRelease() {
+        AtomicInteger released = new AtomicInteger();
+        LinkMonitor.Link link = monitor.port(1500, released::incrementAndGet);
+        advance(1);
+        assertEquals(1, gauge("port", LinkState.ACTIVE));
+        link.close();
+        advance(30);
+        assertEquals(0, released.get());
+        assertEquals(0, gauge("port", LinkState.ACTIVE));
+        verify(webSocket).dropRetained("link:port:1500");
+        verify(webSocket).broadcast(any(TelemetryFrame.class));
+    }
+
+    @Test
+    void linksClosedBeforeTheirFirstTickAreNeverPublished() {
+        monitor.port(1500, () -> { }).close();
+        advance(1);
+        verify(webSocket, never()).publishRetained(any());
+        assertEquals(0, gauge("port", LinkState.ACTIVE));
+    }
+
+    @Test
+    void portEndListenersHearReleasedAndClosedPortsOnce() {
+        List<Integer> ended = new ArrayList<>();
+        monitor.addPortEndListener(ended::add);
+        monitor.port(1500, () -> { });
+        LinkMonitor.Link closed = monitor.port(1501, () -> { });
+        monitor.vehicle("14550", 14550, 1, 1, () -> { });
+        advance(1);
+        closed.close();
+        advance(40);
+        assertEquals(List.of(1501, 1500), ended);
+    }
+
+    @Test
+    void closedLinksAreReapedOnTheNextTick() {
+        List<Integer> ended = new ArrayList<>();
+        monitor.addPortEndListener(ended::add);
+        LinkMonitor.Link link = monitor.port(1500, () -> { });
+        advance(1);
+        link.close();
+        advance(1);
+        assertEquals(List.of(1500), ended);
+        assertEquals(0, gauge("port", LinkState.ACTIVE));
+        verify(webSocket).dropRetained("link:port:1500");
+    }
+
+    @Test
+    void aClosedLinkDoesNotEndThePortItWasReadoptedOn() {
+        List<Integer> ended = new ArrayList<>();
+        monitor.addPortEndListener(ended::add);
+        LinkMonitor.Link old = monitor.port(1500, () -> { });
+        advance(1);
+        old.close();
+        LinkMonitor.Link readopted = monitor.port(1500, () -> { });
+        advance(5);
+        assertEquals(List.of(), ended);
+        assertEquals(LinkState.ACTIVE, readopted.getState());
+        assertEquals(1, gauge("port", LinkState.ACTIVE));
+        verify(webSocket, never()).dropRetained(any());
+    }
+
+    private void advance(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            monitor.advance();
+        }
+    }
+
+    private double gauge(String scope, LinkState state) {
+        return meterRegistry.get("link.state").tag("scope", scope).tag("state", state.wireName()).gauge().value();
+    }
+}
@@ -0,0 +1,90 @@
+package org.mdt.dronedelivery.process;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mdt.dronedelivery.link.LinkMonitor;
+import org.mdt.dronedelivery.send.TelemetryWebSocketService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+class DroneStateRegistryTest {
+
+    private MeterRegistry meterRegistry;
+    private LinkMonitor linkMonitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        linkMonitor = new LinkMonitor(100, 4, 1_000, 2_000, 3_000, 1_000, 2_000, 3_000,
+                mock(TelemetryWebSocketService.class), meterRegistry);
+    }
+
+    @Test
+    void releasedSlotsAreReusedAndOtherVehiclesStayReachable() {
+        DroneStateRegistry registry = new DroneStateRegistry(64, false, linkMonitor, meterRegistry);
+        List<DroneState> states = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            states.add(registry.acquire(1500 + i % 8, 1 + i / 8, 1));
+        }
+        for (int i = 0; i < 64; i += 3) {
+            registry.release(states.get(i));
+        }
+        for (int i = 0; i < 64; i++) {
+            DroneState found = registry.get(DroneState.vehicleKey(1500 + i % 8, 1 + i / 8, 1));
+            if (i % 3 == 0) {
+                assertNull(found);
+                assertNull(registry.state(states.get(i).getSlot()));
+            } else {
+                assertSame(states.get(i), found);
+            }
+        }
+        DroneState returning = registry.acquire(1500, 1, 1);
+        assertNotSame(states.get(0), returning);
+        assertEquals(64, registry.size());
+        assertEquals(43.0, meterRegistry.get("drone.registry.vehicles").gauge().value());
+    }
+
+    @Test
+    void countsMessagesDroppedWhileFull() {
+        DroneStateRegistry registry = new DroneStateRegistry(2, false, linkMonitor, meterRegistry);
+        DroneState first = registry.acquire(1500, 1, 1);
+        assertNotNull(registry.acquire(1501, 1, 1));
+        assertNull(registry.acquire(1502, 1, 1));
+        assertNull(registry.acquire(1502, 1, 1));
+        assertEquals(2.0, meterRegistry.get("drone.registry.rejected").counter().count());
+
+        registry.release(first);
+        DroneState next = registry.acquire(1502, 1, 1);
+        assertNotNull(next);
+        assertEquals(first.getSlot(), next.getSlot());
+    }
+
+    @Test
+    void releasingTwiceOrAStaleStateIsHarmless() {
+        DroneStateRegistry registry = new DroneStateRegistry(4, false, linkMonitor, meterRegistry);
+        DroneState first = registry.acquire(1500, 1, 1);
+        registry.release(first);
+        DroneState again = registry.acquire(1500, 1, 1);
+        registry.release(first);
+        assertSame(again, registry.get(first.getKey()));
+        assertEquals(1.0, meterRegistry.get("drone.registry.vehicles").gauge().value());
+    }
+
+    @Test
+    void frameKeysDoNotDependOnArrivalOrder() {
+        DroneStateRegistry registry = new DroneStateRegistry(4, false, linkMonitor, meterRegistry);
+        assertEquals("1500:2:1", registry.acquire(1500, 2, 1).getFrameKey());
+        assertEquals("1500", registry.acquire(1500, 1, 1).getFrameKey());
+        assertEquals("1500:1:154", registry.acquire(1500, 1, 154).getFrameKey());
+    }
+}
@@ -0,0 +1,59 @@
+package org.mdt.dronedelivery.process;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mdt.dronedelivery.link.LinkMonitor;
+import org.mdt.dronedelivery.send.TelemetryWebSocketService;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TelemetryBroadcastSchedulerTest {
+
+    private TelemetryWebSocketService webSocket;
+    private DroneStateRegistry registry;
+    private TelemetryBroadcastScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        webSocket = new TelemetryWebSocketService(16, "keep-latest", false, meterRegistry);
+        LinkMonitor linkMonitor = new LinkMonitor(100, 4, 1_000, 2_000, 3_000, 1_000, 2_000, 3_000,
+                webSocket, meterRegistry);
+        registry = new DroneStateRegistry(4, false, linkMonitor, meterRegistry);
+        scheduler = new TelemetryBroadcastScheduler(registry, webSocket, 100, true, false, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+        webSocket.shutdown();
+    }
+
+    @Test
+    void aJsonSessionOnTheDefaultSubscriptionReceivesEveryGroup() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        webSocket.afterConnectionEstablished(session);
+
+        DroneState state = registry.acquire(14550, 1, 1);
+        registry.markDirty(state);
+        scheduler.flush();
+
+        ArgumentCaptor<TextMessage> sent = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, timeout(2_000)).sendMessage(sent.capture());
+        String json = sent.getValue().getPayload();
+        assertTrue(json.startsWith("{\"telemetry_data\":{\"14550\":"), json);
+        assertTrue(json.contains("\"armed\""), json);
+    }
+}
@@ -0,0 +1,96 @@
+package org.mdt.dronedelivery.record;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightRecorderTest {
+
+    private static final int FRAMES = 6000;
+    private static final int FRAME_LENGTH = 200;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void framesSurviveRotationAndReadBackInOrder() throws Exception {
+        // 1 MB segments: 6000 records of 212 bytes roll over at least once
+        FlightRecorder recorder = new FlightRecorder(true, directory.toString(), 1, 8192, 72, 10240,
+                new SimpleMeterRegistry());
+        recorder.start();
+        ByteBuffer buffer = ByteBuffer.allocate(FRAME_LENGTH + 16).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < FRAMES; i++) {
+            buffer.clear();
+            buffer.putInt(8, i);
+            recorder.record(14550 + i % 2, buffer, 8, FRAME_LENGTH);
+        }
+        recorder.stop();
+
+        List<Path> segments = segments();
+        assertTrue(segments.size() >= 2, "expected a rotation, got " + segments);
+        for (Path segment : segments) {
+            assertTrue(Files.size(segment) < 1024 * 1024, "closed segments are truncated");
+        }
+
+        List<Integer> all = new ArrayList<>();
+        FlightLogReader.read(directory, 0, 0, Long.MAX_VALUE, (millis, port, frame) -> {
+            assertEquals(FRAME_LENGTH, frame.remaining());
+            int i = frame.getInt(frame.position());
+            assertEquals(14550 + i % 2, port);
+            all.add(i);
+        });
+        assertEquals(FRAMES, all.size());
+        for (int i = 0; i < FRAMES; i++) {
+            assertEquals(i, all.get(i));
+        }
+
+        List<Integer> odd = new ArrayList<>();
+        FlightLogReader.read(directory, 14551, 0, Long.MAX_VALUE,
+                (millis, port, frame) -> odd.add(frame.getInt(frame.position())));
+        assertEquals(FRAMES / 2, odd.size());
+        assertTrue(odd.stream().allMatch(i -> i % 2 == 1));
+    }
+
+    @Test
+    void segmentsStartedInTheSameMillisecondGetDistinctNamesInOrder() throws IOException {
+        byte[] frame = new byte[FRAME_LENGTH];
+        for (int i = 0; i < 3; i++) {
+            try (FlightLogSegment segment = FlightLogSegment.create(directory, 4096, 1_000)) {
+                frame[0] = (byte) i;
+                segment.append(1_000, 14550, frame, frame.length);
+            }
+        }
+        List<Path> segments = segments();
+        assertEquals(3, segments.size());
+        assertNotEquals(segments.get(0), segments.get(1));
+        for (Path segment : segments) {
+            assertEquals(1_000, FlightLogSegment.startMillis(segment));
+        }
+
+        List<Byte> firstBytes = new ArrayList<>();
+        FlightLogReader.read(directory, 0, 1_000, 1_000,
+                (millis, port, data) -> firstBytes.add(data.get(data.position())));
+        assertEquals(List.of((byte) 0, (byte) 1, (byte) 2), firstBytes);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(FlightLogSegment.SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
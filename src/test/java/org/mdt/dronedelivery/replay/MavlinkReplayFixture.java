@@ -0,0 +1,61 @@
+package org.mdt.dronedelivery.replay;
+
+import io.dronefleet.mavlink.MavlinkConnection;
+import io.dronefleet.mavlink.common.GlobalPositionInt;
+import io.dronefleet.mavlink.minimal.Heartbeat;
+import io.dronefleet.mavlink.minimal.MavAutopilot;
+import io.dronefleet.mavlink.minimal.MavState;
+import io.dronefleet.mavlink.minimal.MavType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Writes a small synthetic tlog: one heartbeat and one GLOBAL_POSITION_INT per 100 ms step
+final class MavlinkReplayFixture {
+
+    static final int SYSTEM_ID = 1;
+    static final int LAT = 473_977_420;
+    static final int LON = 85_455_940;
+
+    private MavlinkReplayFixture() {
+    }
+
+    static Path writeTlog(Path directory, int steps) throws IOException {
+        ByteArrayOutputStream tlog = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(tlog);
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        MavlinkConnection connection = MavlinkConnection.create(null, frame);
+        long micros = 1_700_000_000_000_000L;
+        for (int i = 0; i < steps; i++) {
+            connection.send2(SYSTEM_ID, 1, Heartbeat.builder()
+                    .type(MavType.MAV_TYPE_QUADROTOR)
+                    .autopilot(MavAutopilot.MAV_AUTOPILOT_ARDUPILOTMEGA)
+                    .systemStatus(MavState.MAV_STATE_ACTIVE)
+                    .mavlinkVersion(3)
+                    .build());
+            append(out, micros, frame);
+            connection.send2(SYSTEM_ID, 1, GlobalPositionInt.builder()
+                    .timeBootMs(i * 100L)
+                    .lat(LAT)
+                    .lon(LON)
+                    .alt(50_000)
+                    .relativeAlt(10_000)
+                    .hdg(9000)
+                    .build());
+            append(out, micros, frame);
+            micros += 100_000;
+        }
+        Path file = directory.resolve("fixture.tlog");
+        Files.write(file, tlog.toByteArray());
+        return file;
+    }
+
+    private static void append(DataOutputStream out, long micros, ByteArrayOutputStream frame) throws IOException {
+        out.writeLong(micros);
+        frame.writeTo(out);
+        frame.reset();
+    }
+}
@@ -0,0 +1,71 @@
+package org.mdt.dronedelivery.replay;
+
+import io.dronefleet.mavlink.common.GlobalPositionInt;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.mdt.dronedelivery.accept.MavlinkFrameDecoder;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MavlinkReplayerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    // Interrupts the blocking receive if a datagram goes missing
+    @Timeout(10)
+    void fansRecordingOutAsDistinctDronesWithValidCrc() throws Exception {
+        List<ReplayRecord> records = MavlinkReplayer.load(MavlinkReplayFixture.writeTlog(directory, 5), 0);
+        assertEquals(10, records.size());
+
+        try (DatagramChannel receiver = DatagramChannel.open().bind(new InetSocketAddress("127.0.0.1", 0))) {
+            int port = ((InetSocketAddress) receiver.getLocalAddress()).getPort();
+            ReplayOptions options = ReplayOptions.builder()
+                    .basePort(port)
+                    .drones(4)
+                    .firstSystemId(10)
+                    .offsetDegrees(0.01)
+                    .speed(0)
+                    .build();
+            ReplayResult result = new MavlinkReplayer(records, options).run();
+            assertEquals(40, result.getDatagrams());
+
+            // Frames only reach the listener when their recomputed CRC checks out
+            Map<Integer, GlobalPositionInt> positions = new HashMap<>();
+            MavlinkFrameDecoder decoder = new MavlinkFrameDecoder();
+            ByteBuffer buffer = ByteBuffer.allocate(2048);
+            int received = 0;
+            receiver.configureBlocking(true);
+            while (received < result.getDatagrams()) {
+                buffer.clear();
+                receiver.receive(buffer);
+                buffer.flip();
+                decoder.decode(buffer, (frame, payload) -> {
+                    if (payload instanceof GlobalPositionInt position) {
+                        positions.put(frame.getSystemId(), position);
+                    }
+                });
+                received++;
+            }
+
+            assertEquals(4, positions.size());
+            assertTrue(positions.keySet().containsAll(List.of(10, 11, 12, 13)));
+            // 2x2 grid: drone 3 sits one row and one column away from the recorded track
+            assertEquals(MavlinkReplayFixture.LAT, positions.get(10).lat());
+            assertEquals(MavlinkReplayFixture.LON + 100_000, positions.get(11).lon());
+            assertEquals(MavlinkReplayFixture.LAT + 100_000, positions.get(13).lat());
+            assertEquals(MavlinkReplayFixture.LON + 100_000, positions.get(13).lon());
+        }
+    }
+}